@@ -0,0 +1,23 @@
+package org.vaadin.addons.filteringgrid.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, which adds the allocation rate
+ * and the garbage collection counts to the results. Accepts the usual JMH
+ * command line options, for example {@code -p size=10000} to use only the
+ * smallest data set or a benchmark name pattern.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args)
+            throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder().parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+}
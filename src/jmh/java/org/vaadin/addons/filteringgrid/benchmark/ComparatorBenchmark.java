@@ -0,0 +1,306 @@
+package org.vaadin.addons.filteringgrid.benchmark;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vaadin.addons.filteringgrid.comparators.Comparator;
+import org.vaadin.addons.filteringgrid.comparators.CompilablePredicate;
+import org.vaadin.addons.filteringgrid.comparators.RangeComparator;
+import org.vaadin.addons.filteringgrid.comparators.StringComparator;
+import org.vaadin.addons.filteringgrid.components.DateRangeField.DateRange;
+import org.vaadin.addons.filteringgrid.components.NumberInterval;
+import org.vaadin.addons.filteringgrid.data.Person;
+import org.vaadin.addons.filteringgrid.data.Person.Continent;
+
+import com.vaadin.server.SerializableBiPredicate;
+import com.vaadin.server.SerializablePredicate;
+
+/**
+ * Evaluates each filter predicate once for every person, the way a scan
+ * without a compiled filter plan does. The {@code compiled} variants
+ * compile a {@link CompilablePredicate} once for the filter value, the way
+ * a filter plan does, and evaluate the compiled predicate for every person.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms8g", "-Xmx8g" })
+public class ComparatorBenchmark {
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int size;
+
+    private List<Person> persons;
+
+    private final SerializableBiPredicate<String, String> contains = StringComparator
+            .contains();
+
+    private final SerializableBiPredicate<String, String> containsIgnoreCase = StringComparator
+            .containsIgnoreCase();
+
+    private final SerializableBiPredicate<String, String> startsWith = StringComparator
+            .startsWith();
+
+    private final SerializableBiPredicate<String, String> startsWithIgnoreCase = StringComparator
+            .startsWithIgnoreCase();
+
+    private final SerializableBiPredicate<Continent, Continent> isEqualTo = Comparator
+            .isEqualTo();
+
+    private final SerializableBiPredicate<Float, Float> smallerThan = Comparator
+            .smallerThan();
+
+    private final SerializableBiPredicate<Float, Float> smallerThanOrEquals = Comparator
+            .smallerThanOrEquals();
+
+    private final SerializableBiPredicate<Float, Float> equalTo = Comparator
+            .equals();
+
+    private final SerializableBiPredicate<Float, Float> greaterThanOrEquals = Comparator
+            .greaterThanOrEquals();
+
+    private final SerializableBiPredicate<Float, Float> greaterThan = Comparator
+            .greaterThan();
+
+    private final SerializableBiPredicate<Float, NumberInterval> numberInterval = RangeComparator
+            .numberInterval();
+
+    private final SerializableBiPredicate<Date, DateRange> dateRange = RangeComparator
+            .dateRange();
+
+    private final Float balance = 2500f;
+
+    private final NumberInterval balanceInterval = new NumberInterval("5000",
+            "2500", null);
+
+    private final DateRange birthDateRange = new DateRange(
+            LocalDate.of(1970, 1, 1), LocalDate.of(1989, 12, 31));
+
+    private SerializablePredicate<String> compiledContainsIgnoreCase;
+
+    private SerializablePredicate<String> compiledStartsWith;
+
+    private SerializablePredicate<String> compiledStartsWithIgnoreCase;
+
+    private SerializablePredicate<Float> compiledNumberInterval;
+
+    private SerializablePredicate<Date> compiledDateRange;
+
+    @Setup
+    public void setUp() {
+        persons = PersonGenerator.generate(size, 42);
+        compiledContainsIgnoreCase = compile(containsIgnoreCase, "SON");
+        compiledStartsWith = compile(startsWith, "An");
+        compiledStartsWithIgnoreCase = compile(startsWithIgnoreCase, "an");
+        compiledNumberInterval = compile(numberInterval, balanceInterval);
+        compiledDateRange = compile(dateRange, birthDateRange);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V, F> SerializablePredicate<V> compile(
+            SerializableBiPredicate<V, F> predicate, F filterValue) {
+        return ((CompilablePredicate<V, F>) predicate).compile(filterValue);
+    }
+
+    @Benchmark
+    public int contains() {
+        int count = 0;
+        for (Person person : persons) {
+            if (contains.test(person.getLastName(), "son")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int containsIgnoreCase() {
+        int count = 0;
+        for (Person person : persons) {
+            if (containsIgnoreCase.test(person.getLastName(), "SON")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int compiledContainsIgnoreCase() {
+        int count = 0;
+        for (Person person : persons) {
+            if (compiledContainsIgnoreCase.test(person.getLastName())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int startsWith() {
+        int count = 0;
+        for (Person person : persons) {
+            if (startsWith.test(person.getFirstName(), "An")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int compiledStartsWith() {
+        int count = 0;
+        for (Person person : persons) {
+            if (compiledStartsWith.test(person.getFirstName())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int startsWithIgnoreCase() {
+        int count = 0;
+        for (Person person : persons) {
+            if (startsWithIgnoreCase.test(person.getFirstName(), "an")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int compiledStartsWithIgnoreCase() {
+        int count = 0;
+        for (Person person : persons) {
+            if (compiledStartsWithIgnoreCase.test(person.getFirstName())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int isEqualTo() {
+        int count = 0;
+        for (Person person : persons) {
+            if (isEqualTo.test(person.getContinent(), Continent.EUROPE)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int smallerThan() {
+        int count = 0;
+        for (Person person : persons) {
+            if (smallerThan.test(person.getBalance(), balance)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int smallerThanOrEquals() {
+        int count = 0;
+        for (Person person : persons) {
+            if (smallerThanOrEquals.test(person.getBalance(), balance)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int equalTo() {
+        int count = 0;
+        for (Person person : persons) {
+            if (equalTo.test(person.getBalance(), balance)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int greaterThanOrEquals() {
+        int count = 0;
+        for (Person person : persons) {
+            if (greaterThanOrEquals.test(person.getBalance(), balance)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int greaterThan() {
+        int count = 0;
+        for (Person person : persons) {
+            if (greaterThan.test(person.getBalance(), balance)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int numberInterval() {
+        int count = 0;
+        for (Person person : persons) {
+            if (numberInterval.test(person.getBalance(), balanceInterval)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int compiledNumberInterval() {
+        int count = 0;
+        for (Person person : persons) {
+            if (compiledNumberInterval.test(person.getBalance())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int dateRange() {
+        int count = 0;
+        for (Person person : persons) {
+            if (dateRange.test(person.getDateOfBirth(), birthDateRange)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int compiledDateRange() {
+        int count = 0;
+        for (Person person : persons) {
+            if (compiledDateRange.test(person.getDateOfBirth())) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,144 @@
+package org.vaadin.addons.filteringgrid.benchmark;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vaadin.addons.filteringgrid.FilterGrid;
+import org.vaadin.addons.filteringgrid.comparators.StringComparator;
+import org.vaadin.addons.filteringgrid.components.DateRangeField;
+import org.vaadin.addons.filteringgrid.components.DateRangeField.DateRange;
+import org.vaadin.addons.filteringgrid.components.NumberInterval;
+import org.vaadin.addons.filteringgrid.data.Person;
+
+import com.vaadin.data.HasValue;
+import com.vaadin.data.provider.DataCommunicator;
+import com.vaadin.shared.data.sort.SortDirection;
+import com.vaadin.ui.TextField;
+
+/**
+ * Measures filter value changes and page fetches of an in-memory {@link
+ * FilterGrid}. Every filter benchmark alternates between two filter values
+ * that don't narrow each other down, so each invocation filters the whole
+ * data set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms8g", "-Xmx8g" })
+public class FilterGridBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int size;
+
+    private FilterGrid<Person> grid;
+
+    private DataCommunicator<Person> dataCommunicator;
+
+    private FilterGrid.Column<Person, String> lastNameColumn;
+
+    private TextField lastNameFilter;
+
+    private HasValue<NumberInterval> balanceFilter;
+
+    private HasValue<DateRange> birthDateFilter;
+
+    private DateRangeField registeredFilter;
+
+    private int invocation;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        List<Person> persons = PersonGenerator.generate(size, 42);
+        ZoneId zone = ZoneId.systemDefault();
+
+        grid = new FilterGrid<>();
+        lastNameColumn = grid.addColumn(Person::getLastName);
+        FilterGrid.Column<Person, Float> balanceColumn = grid
+                .addColumn(Person::getBalance);
+        balanceColumn.setValueType(Float.class);
+        FilterGrid.Column<Person, Date> birthDateColumn = grid
+                .addColumn(Person::getDateOfBirth);
+        birthDateColumn.setValueType(Date.class);
+        grid.generateFilters();
+        lastNameFilter = (TextField) grid.getFilterComponent(lastNameColumn);
+        balanceFilter = (HasValue<NumberInterval>) grid
+                .getFilterComponent(balanceColumn);
+        birthDateFilter = (HasValue<DateRange>) grid
+                .getFilterComponent(birthDateColumn);
+
+        registeredFilter = new DateRangeField();
+        grid.addColumn(Person::getRegistered).setFilter(
+                v -> v.toInstant().atZone(zone).toLocalDate(),
+                registeredFilter,
+                (v, fv) -> fv == null || (!v.isBefore(fv.getDateFrom())
+                        && !v.isAfter(fv.getDateTo())));
+
+        grid.setItems(persons);
+        dataCommunicator = grid.getDataCommunicator();
+    }
+
+    @Benchmark
+    public int textFilter() {
+        lastNameFilter.setValue(next() ? "son" : "ma");
+        return dataCommunicator.getDataProviderSize();
+    }
+
+    @Benchmark
+    public int numberIntervalFilter() {
+        balanceFilter.setValue(next() ? new NumberInterval("5000", "2500", "")
+                : new NumberInterval("", "7500", ""));
+        return dataCommunicator.getDataProviderSize();
+    }
+
+    @Benchmark
+    public int dateRangeFilter() {
+        birthDateFilter.setValue(next()
+                ? new DateRange(LocalDate.of(1970, 1, 1),
+                        LocalDate.of(1989, 12, 31))
+                : new DateRange(LocalDate.of(1990, 1, 1), null));
+        return dataCommunicator.getDataProviderSize();
+    }
+
+    @Benchmark
+    public int filterConverter() {
+        registeredFilter.setValue(next()
+                ? new DateRange(LocalDate.of(2012, 1, 1),
+                        LocalDate.of(2013, 12, 31))
+                : new DateRange(LocalDate.of(2014, 1, 1),
+                        LocalDate.of(2017, 12, 31)));
+        return dataCommunicator.getDataProviderSize();
+    }
+
+    @Benchmark
+    public List<Person> sortAndFetchPage() {
+        grid.sort(lastNameColumn,
+                next() ? SortDirection.ASCENDING : SortDirection.DESCENDING);
+        int size = dataCommunicator.getDataProviderSize();
+        int offset = (int) ((invocation * 7919L) % Math.max(1,
+                size - PAGE_SIZE));
+        return dataCommunicator.fetchItemsWithRange(offset, PAGE_SIZE);
+    }
+
+    private boolean next() {
+        return (invocation++ & 1) == 0;
+    }
+}
@@ -0,0 +1,80 @@
+package org.vaadin.addons.filteringgrid.benchmark;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.vaadin.addons.filteringgrid.data.Person;
+import org.vaadin.addons.filteringgrid.data.Person.Continent;
+
+/**
+ * Generates any number of synthetic persons. The same seed and count always
+ * give the same persons, so benchmark runs are comparable.
+ */
+public final class PersonGenerator {
+
+    private static final String[] FIRST_NAMES = { "Nell", "Marquez", "Alba",
+            "Hester", "Ollie", "Bernadine", "Tate", "Goldie", "Lindsey",
+            "Cherry", "Elvira", "Morton", "Annabelle", "Rios", "Kirsten",
+            "Dunlap", "Sheree", "Valentine", "Anna", "Erickson" };
+
+    private static final String[] LAST_NAMES = { "Erickson", "Blackwell",
+            "Mcintyre", "Vaughan", "Holcomb", "Frederick", "Ashley", "Shaw",
+            "Garner", "Mathis", "Rowland", "Pace", "Glover", "Annis",
+            "Schultz", "Stanton", "Irwin", "Macias", "Nolan", "Terrell" };
+
+    private static final String[] COMPANIES = { "OTHERWAY", "ZILLACOM",
+            "ISOPLEX", "GEEKOSIS", "QUILTIGEN", "ACUMENTOR", "EXOSWITCH",
+            "MEDIFAX", "TERRAGEN", "COMVEYOR" };
+
+    private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1940, 1, 1);
+
+    private static final LocalDate FIRST_REGISTRATION = LocalDate.of(2010, 1,
+            1);
+
+    private PersonGenerator() {
+    }
+
+    /**
+     * Generates persons.
+     *
+     * @param count
+     *         the number of persons
+     * @param seed
+     *         the seed of the random values
+     * @return a new list of persons
+     */
+    public static List<Person> generate(int count, long seed) {
+        Random random = new Random(seed);
+        ZoneId zone = ZoneId.systemDefault();
+        Continent[] continents = Continent.values();
+        List<Person> persons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Person person = new Person();
+            person.setIndex(i);
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            person.setFirstName(firstName);
+            person.setLastName(lastName);
+            person.setEmail(firstName.toLowerCase() + "." + i + "@"
+                    + lastName.toLowerCase() + ".com");
+            person.setCompany(COMPANIES[random.nextInt(COMPANIES.length)]);
+            person.setDateOfBirth(Date.from(FIRST_BIRTH_DATE
+                    .plusDays(random.nextInt(25_000)).atStartOfDay(zone)
+                    .toInstant()));
+            person.setRegistered(Date.from(FIRST_REGISTRATION
+                    .plusDays(random.nextInt(3_000)).atStartOfDay(zone)
+                    .toInstant()));
+            person.setBalance(random.nextInt(1_000_000) / 100f);
+            person.setLatitude(random.nextDouble() * 180 - 90);
+            person.setLongitude(random.nextDouble() * 360 - 180);
+            person.setActive(random.nextBoolean());
+            person.setContinent(continents[random.nextInt(continents.length)]);
+            persons.add(person);
+        }
+        return persons;
+    }
+}
@@ -0,0 +1,299 @@
+package org.vaadin.addons.filteringgrid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.vaadin.addons.filteringgrid.FilterGrid.CountFilteredItemsCallback;
+import org.vaadin.addons.filteringgrid.FilterGrid.FetchFilteredItemsCallback;
+import org.vaadin.addons.filteringgrid.filters.FilterCollection;
+
+import com.vaadin.data.provider.AbstractBackEndDataProvider;
+import com.vaadin.data.provider.DataChangeEvent;
+import com.vaadin.data.provider.Query;
+import com.vaadin.data.provider.QuerySortOrder;
+import com.vaadin.server.SerializableConsumer;
+import com.vaadin.server.SerializableSupplier;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.UIDetachedException;
+
+/**
+ * Backend data provider that calls the fetch and count callbacks on an
+ * executor instead of the request thread.
+ * <p>
+ * A query whose result is not loaded yet starts loading it and is answered
+ * with the result of the previous filter values meanwhile, or with no items
+ * if there is none. When the result arrives, it is kept and the grid is
+ * refreshed through {@link UI#access(com.vaadin.server.Command)
+ * UI.access()}, so that the repeated query is answered from it. Results that
+ * arrive for filter values that are no longer current are ignored. Loads
+ * for stale filter values are cancelled, which skips callbacks that have
+ * not started yet, but a callback that is already running is not
+ * interrupted and its result is only ignored.
+ * <p>
+ * A query made without a current UI calls the callbacks synchronously,
+ * because the grid could not be updated with the result later without the
+ * lock of its session.
+ *
+ * @param <T>
+ *         the grid bean type
+ */
+class AsyncFilteringDataProvider<T> extends
+        AbstractBackEndDataProvider<T, FilterCollection> {
+
+    private static final int MAX_RESULTS = 16;
+
+    private static final Object COUNT_KEY = new Object();
+
+    private final FetchFilteredItemsCallback<T> fetchItems;
+
+    private final CountFilteredItemsCallback sizeCallback;
+
+    private final SerializableSupplier<Executor> executorProvider;
+
+    private final SerializableConsumer<Boolean> loadingListener;
+
+    private final SerializableConsumer<DataChangeEvent<T>> loadedListener;
+
+    private final SerializableConsumer<DataChangeEvent<T>> dataChangeListener;
+
+    private transient FilterCollection filters;
+
+    private transient Integer count;
+
+    private transient int previousCount;
+
+    private transient Map<Object, List<T>> results;
+
+    private transient Map<Object, List<T>> previousResults;
+
+    private transient Map<Object, CompletableFuture<?>> pending;
+
+    private transient boolean loading;
+
+    /**
+     * Creates a new asynchronous data provider.
+     *
+     * @param fetchItems
+     *         callback for fetching items from the backend
+     * @param sizeCallback
+     *         callback for counting items
+     * @param executorProvider
+     *         supplier of the executor that runs the callbacks
+     * @param loadingListener
+     *         listener that is notified when loading starts and when every
+     *         started load has completed or been cancelled
+     * @param loadedListener
+     *         listener that is notified when the result of the last pending
+     *         load has been applied, but not when loads are cancelled
+     * @param dataChangeListener
+     *         listener that is notified when the data provider is refreshed
+     *         by the application
+     */
+    AsyncFilteringDataProvider(FetchFilteredItemsCallback<T> fetchItems,
+            CountFilteredItemsCallback sizeCallback,
+            SerializableSupplier<Executor> executorProvider,
+            SerializableConsumer<Boolean> loadingListener,
+            SerializableConsumer<DataChangeEvent<T>> loadedListener,
+            SerializableConsumer<DataChangeEvent<T>> dataChangeListener) {
+        this.fetchItems = fetchItems;
+        this.sizeCallback = sizeCallback;
+        this.executorProvider = executorProvider;
+        this.loadingListener = loadingListener;
+        this.loadedListener = loadedListener;
+        this.dataChangeListener = dataChangeListener;
+    }
+
+    @Override
+    protected synchronized int sizeInBackEnd(
+            Query<T, FilterCollection> query) {
+        FilterCollection filters = select(query);
+        if (count != null) {
+            return count;
+        }
+        load(COUNT_KEY, () -> sizeCallback.countItems(filters),
+                result -> count = result);
+        return count != null ? count : previousCount;
+    }
+
+    @Override
+    protected synchronized Stream<T> fetchFromBackEnd(
+            Query<T, FilterCollection> query) {
+        FilterCollection filters = select(query);
+        List<QuerySortOrder> sortOrders = query.getSortOrders();
+        List<Object> key = toKey(sortOrders, query.getOffset(),
+                query.getLimit());
+        List<T> items = results.get(key);
+        if (items == null) {
+            load(key, () -> fetchItems.fetchItems(sortOrders, filters,
+                    query.getOffset(), query.getLimit())
+                    .collect(Collectors.toList()),
+                    result -> results.put(key, result));
+            items = results.get(key);
+        }
+        if (items == null) {
+            items = previousResults.getOrDefault(key, Collections.emptyList());
+        }
+        return items.stream();
+    }
+
+    @Override
+    public void refreshAll() {
+        synchronized (this) {
+            cancelPending();
+            count = null;
+            if (results != null) {
+                results.clear();
+            }
+        }
+        dataChangeListener.accept(new DataChangeEvent<>(this));
+        super.refreshAll();
+    }
+
+    @Override
+    public void refreshItem(T item) {
+        dataChangeListener.accept(new DataChangeEvent<>(this));
+        super.refreshItem(item);
+    }
+
+    /*
+     * Makes the filter values of the query current. Results of the previous
+     * filter values are kept for display until the new ones arrive.
+     */
+    private FilterCollection select(Query<T, FilterCollection> query) {
+        FilterCollection queryFilters = query.getFilter()
+                .orElse(FilterCollection.getEmpty());
+        if (results == null) {
+            results = createResults();
+            previousResults = Collections.emptyMap();
+            pending = new HashMap<>();
+        }
+        if (!queryFilters.equals(filters)) {
+            cancelPending();
+            if (filters != null) {
+                previousResults = results;
+                results = createResults();
+            }
+            if (count != null) {
+                previousCount = count;
+            }
+            count = null;
+            filters = queryFilters;
+        }
+        return filters;
+    }
+
+    private <R> void load(Object key, Supplier<R> loader,
+            Consumer<R> resultConsumer) {
+        if (pending.containsKey(key)) {
+            return;
+        }
+        UI ui = UI.getCurrent();
+        VaadinSession session = ui == null ? null : ui.getSession();
+        if (session == null) {
+            resultConsumer.accept(loader.get());
+            if (pending.isEmpty()) {
+                loadedListener.accept(new DataChangeEvent<>(this));
+            }
+            return;
+        }
+        CompletableFuture<R> future = new CompletableFuture<>();
+        future.whenComplete((result, error) -> access(ui, session, () -> {
+            boolean loaded;
+            synchronized (this) {
+                if (pending.get(key) != future) {
+                    return;
+                }
+                pending.remove(key);
+                loaded = pending.isEmpty();
+                setLoading(!loaded);
+                if (error != null) {
+                    throw new IllegalStateException(
+                            "Loading items from the backend failed", error);
+                }
+                resultConsumer.accept(result);
+            }
+            DataChangeEvent<T> event = new DataChangeEvent<>(this);
+            fireEvent(event);
+            if (loaded) {
+                loadedListener.accept(event);
+            }
+        }));
+        pending.put(key, future);
+        setLoading(true);
+        executorProvider.get().execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(loader.get());
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+            }
+        });
+    }
+
+    private void cancelPending() {
+        if (pending != null) {
+            List<CompletableFuture<?>> futures = new ArrayList<>(
+                    pending.values());
+            pending.clear();
+            setLoading(false);
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private void setLoading(boolean loading) {
+        if (this.loading != loading) {
+            this.loading = loading;
+            loadingListener.accept(loading);
+        }
+    }
+
+    /*
+     * Runs the command with the lock of the session that started the load.
+     * The result is dropped if the UI has been detached meanwhile.
+     */
+    private static void access(UI ui, VaadinSession session,
+            Runnable command) {
+        if (ui.getSession() != session) {
+            return;
+        }
+        try {
+            ui.access(command::run);
+        } catch (UIDetachedException e) {
+            /* Detached after the check above */
+        }
+    }
+
+    private static List<Object> toKey(List<QuerySortOrder> sortOrders,
+            int offset, int limit) {
+        List<Object> key = new ArrayList<>(sortOrders.size() * 2 + 2);
+        sortOrders.forEach(order -> key.addAll(
+                Arrays.asList(order.getSorted(), order.getDirection())));
+        key.add(offset);
+        key.add(limit);
+        return key;
+    }
+
+    private Map<Object, List<T>> createResults() {
+        return new LinkedHashMap<Object, List<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Object, List<T>> eldest) {
+                return size() > MAX_RESULTS;
+            }
+        };
+    }
+}
@@ -6,17 +6,18 @@ import java.math.BigInteger;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.Date;
 import java.util.EnumSet;
 
-import org.apache.commons.lang3.StringUtils;
 import org.vaadin.addons.filteringgrid.FilterGrid.Column;
+import org.vaadin.addons.filteringgrid.comparators.Comparator;
+import org.vaadin.addons.filteringgrid.comparators.RangeComparator;
 import org.vaadin.addons.filteringgrid.comparators.StringComparator;
 import org.vaadin.addons.filteringgrid.components.DateRangeField;
 import org.vaadin.addons.filteringgrid.components.NumberFilterPopup;
-import org.vaadin.addons.filteringgrid.components.NumberInterval;
-import org.vaadin.addons.filteringgrid.components.DateRangeField.DateRange;
+import org.vaadin.addons.filteringgrid.filters.DoubleValueProvider;
+import org.vaadin.addons.filteringgrid.filters.IntValueProvider;
+import org.vaadin.addons.filteringgrid.filters.LongValueProvider;
 
 import com.vaadin.data.HasValue;
 import com.vaadin.data.ValueProvider;
@@ -44,98 +45,19 @@ public class FilterFieldGenerator implements Serializable {
         owner.getColumns().forEach(col -> createFilter((Column)col) );
     }
 
-  
-    @SuppressWarnings({ "rawtypes", "unchecked" })
-    private boolean generateNumberFilter(NumberInterval interval,
-            Object value) {
-        if (interval == null) {
-            /* Number interval is empty -> no filter */
-            return true;
-        }
-        if (value == null || !(value instanceof Comparable) ) return false;
-        
-        Comparable comparable = (Comparable) value;
-
-        String ltValue = interval.getLessThanValue();
-        String gtValue = interval.getGreaterThanValue();
-        String eqValue = interval.getEqualsValue();
-        Class<?> typeClass = value.getClass();
-
-        if (StringUtils.isNotBlank(eqValue)) {
-            return comparable.equals(parseNumberValue(typeClass, eqValue));
-        } else if (StringUtils.isNotBlank(ltValue) && StringUtils.isNotBlank(gtValue) ) {
-            return comparable.compareTo(parseNumberValue(typeClass,ltValue)) < 0 && comparable.compareTo( parseNumberValue(
-                    typeClass, gtValue)) > 0;
-        } else if (StringUtils.isNotBlank(ltValue) ) {
-            return comparable.compareTo(parseNumberValue(typeClass,ltValue)) < 0;
-        } else if (StringUtils.isNotBlank(gtValue) ) {
-            return comparable.compareTo(parseNumberValue(typeClass,gtValue)) > 0;
-        }
-        return false;
-    }
-    
-    private static Comparable<?> parseNumberValue(Class<?> typeClass, String value) {
-        if (typeClass == BigDecimal.class)
-                return new BigDecimal(value);
-        if (typeClass == BigInteger.class)
-                return new BigInteger(value);
-        if (typeClass == byte.class || typeClass == Byte.class)
-                return Byte.valueOf(value);
-        if (typeClass == short.class || typeClass == Short.class)
-                return Short.valueOf(value);
-        if (typeClass == int.class || typeClass == Integer.class)
-                return Integer.valueOf(value);
-        if (typeClass == long.class || typeClass == Long.class)
-                return Long.valueOf(value);
-        if (typeClass == float.class || typeClass == Float.class)
-                return Float.valueOf(value);
-        if (typeClass == double.class || typeClass == Double.class)
-                return Double.valueOf(value);
-        
-        throw new UnsupportedOperationException("Unsupported number type; " + typeClass.getName());
-    }
-
-    private boolean generateDateFilter(DateRange interval, Object value) {
-        /* Handle date filtering */
-        if (interval == null || interval.isNull()) {
-            /* Date interval is empty -> no filter */
-            return true;
-        }
-        
-        if (value == null) return false;
-        
-        LocalDateTime localValue = value instanceof LocalDateTime ? (LocalDateTime) value : null;
-            
-        
-        if (value instanceof Date) {
-            localValue = ((Date) value).toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
-        } else if (value instanceof LocalDate) {
-            localValue = ((LocalDate) value).atStartOfDay();
-        }
-        if (localValue == null ) return true; // should not happen
-                
-                
-        if (interval.getDateFrom() != null && interval.getDateTo() != null) {
-            return !localValue.isBefore(interval.getDateFrom().atStartOfDay()) && !localValue.isAfter(interval.getDateTo().plusDays(1).atStartOfDay());
-        } else if (interval.getDateFrom() != null) {
-            return !localValue.isBefore(interval.getDateFrom().atStartOfDay());
-        } else {
-            return !localValue.isAfter(interval.getDateTo().plusDays(1).atStartOfDay());
-        }
-    }
-
     @SuppressWarnings({ "rawtypes", "unchecked" })
     private void createFilter(Column column) {
         HasValue<?> component = null;
         ValueProvider<?,?> vp = null;
         SerializableBiPredicate<?,?> predicate = null;
         
-        SerializableBiPredicate<?,?> equals = (value, filterValue)  -> filterValue == null || filterValue.equals(value);
+        SerializableBiPredicate<?,?> equals = Comparator.isEqualTo();
         Class<?> type = column.getValueType();
         if (owner.getFilterGenerator() != null) {
             component = (HasValue<?>) owner.getFilterGenerator().getCustomFilterComponent(column);
             vp = owner.getFilterGenerator().getValueProvider(column);
             predicate = owner.getFilterGenerator().getPredicate(column);
+            column.setFilterCost(owner.getFilterGenerator().getFilterCost(column));
         }
         
         if (type == boolean.class || type == Boolean.class) {
@@ -147,7 +69,7 @@ public class FilterFieldGenerator implements Serializable {
         } else if (type == Date.class || type == Timestamp.class || type == java.sql.Date.class
                 || type == LocalDate.class || type == LocalDateTime.class) {
             component = component !=null ? component : createDateField(column);
-            predicate = predicate != null ? predicate : (value, filterValue)  -> generateDateFilter ((DateRange)filterValue, value );
+            predicate = predicate != null ? predicate : RangeComparator.dateRange();
             
         } else if ((type == Integer.class || type == Long.class
                 || type == Float.class || type == Double.class
@@ -157,7 +79,7 @@ public class FilterFieldGenerator implements Serializable {
                 || type == short.class || type == byte.class
                 || type == BigDecimal.class || type == BigInteger.class)) {
             component = component !=null ? component : createNumericField(type, column);
-            predicate = predicate != null ? predicate :(value, filterValue)  -> generateNumberFilter ((NumberInterval)filterValue, value);
+            predicate = predicate != null ? predicate : createNumberPredicate(column);
         } else {
             component = component !=null ? component : createTextField(column);
             predicate = predicate != null ?predicate : StringComparator.containsIgnoreCase();
@@ -170,6 +92,18 @@ public class FilterFieldGenerator implements Serializable {
         
     }
 
+    private SerializableBiPredicate<?,?> createNumberPredicate(Column<?,?> column) {
+        ValueProvider<?,?> valueProvider = column.getValueProvider();
+        if (valueProvider instanceof IntValueProvider) {
+            return RangeComparator.intInterval();
+        } else if (valueProvider instanceof LongValueProvider) {
+            return RangeComparator.longInterval();
+        } else if (valueProvider instanceof DoubleValueProvider) {
+            return RangeComparator.doubleInterval();
+        }
+        return RangeComparator.numberInterval();
+    }
+
     private TextField createTextField(Column<?,?> column) {
         final TextField textField = new TextField();
         if (owner.getFilterDecorator() != null) {
@@ -37,5 +37,16 @@ public interface FilterGenerator extends Serializable {
      * @return
      */
     public Component getCustomFilterComponent(Column<?,?> column);
+
+    /**
+     * Gives a hint of the cost of evaluating the filter for one item,
+     * relative to a simple comparison, which costs {@code 1}
+     * @param column
+     * @return the relative cost, at least {@code 1}
+     * @see Column#setFilterCost(int)
+     */
+    public default int getFilterCost(Column<?,?> column) {
+        return 1;
+    }
   
 }
@@ -4,15 +4,35 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.vaadin.addons.filteringgrid.backend.CountCache;
+import org.vaadin.addons.filteringgrid.backend.FilteredPage;
+import org.vaadin.addons.filteringgrid.backend.PageCache;
+import org.vaadin.addons.filteringgrid.comparators.DoubleFilterPredicate;
+import org.vaadin.addons.filteringgrid.comparators.IntFilterPredicate;
+import org.vaadin.addons.filteringgrid.comparators.LongFilterPredicate;
+import org.vaadin.addons.filteringgrid.comparators.NormalizingPredicate;
+import org.vaadin.addons.filteringgrid.filters.DoubleValueProvider;
 import org.vaadin.addons.filteringgrid.filters.Filter;
 import org.vaadin.addons.filteringgrid.filters.FilterCollection;
 import org.vaadin.addons.filteringgrid.filters.FilterComponentWrapper;
 import org.vaadin.addons.filteringgrid.filters.InMemoryFilter;
+import org.vaadin.addons.filteringgrid.filters.InMemoryFilterPlan;
+import org.vaadin.addons.filteringgrid.filters.IntValueProvider;
+import org.vaadin.addons.filteringgrid.filters.LongValueProvider;
+import org.vaadin.addons.filteringgrid.filters.ParallelFilter;
+import org.vaadin.addons.filteringgrid.metrics.FilterGridMetrics;
+import org.vaadin.addons.filteringgrid.metrics.FilterGridMetrics.Cache;
 
 import com.vaadin.data.BeanPropertySet;
 import com.vaadin.data.Binder.Binding;
@@ -20,14 +40,16 @@ import com.vaadin.data.HasValue;
 import com.vaadin.data.PropertyDefinition;
 import com.vaadin.data.ValueProvider;
 import com.vaadin.data.provider.CallbackDataProvider;
+import com.vaadin.data.provider.DataChangeEvent;
+import com.vaadin.data.provider.DataChangeEvent.DataRefreshEvent;
 import com.vaadin.data.provider.DataProvider;
 import com.vaadin.data.provider.InMemoryDataProvider;
 import com.vaadin.data.provider.ListDataProvider;
 import com.vaadin.data.provider.QuerySortOrder;
 import com.vaadin.server.SerializableBiPredicate;
 import com.vaadin.server.SerializableComparator;
+import com.vaadin.server.SerializableConsumer;
 import com.vaadin.server.SerializableFunction;
-import com.vaadin.server.SerializablePredicate;
 import com.vaadin.server.Setter;
 import com.vaadin.shared.Registration;
 import com.vaadin.shared.ui.ContentMode;
@@ -96,13 +118,115 @@ public class FilterGrid<T> extends Grid<T> {
         public Integer countItems(FilterCollection filters);
     }
 
+    /**
+     * A callback method for fetching a page of filtered items together with
+     * the total number of filtered items, for example with a single SQL
+     * query that uses a window function for the count.
+     *
+     * @param <T>
+     *         the grid bean type
+     */
+    @FunctionalInterface
+    public interface FetchFilteredPageCallback<T> extends Serializable {
+
+        /**
+         * Returns a page of items ordered by given sort orders, filtered by
+         * given filters, limiting the results with given offset and limit,
+         * and the number of items filtered by given filters.
+         *
+         * @param sortOrder
+         *         a list of sort orders
+         * @param filters
+         *         a filter collection
+         * @param offset
+         *         the first index to fetch
+         * @param limit
+         *         the fetched item count
+         * @return page of items with the total item count
+         */
+        public FilteredPage<T> fetchPage(List<QuerySortOrder> sortOrder,
+                FilterCollection filters, int offset, int limit);
+    }
+
+    /**
+     * A callback method for fetching filtered items with keyset pagination.
+     * Besides the offset, the callback is provided with the sort key of the
+     * item just before the offset when the grid knows it, so that the
+     * backend can seek to the first item with a condition such as {@code
+     * WHERE (last_name, id) > (?, ?)} instead of skipping {@code offset}
+     * rows.
+     *
+     * @param <T>
+     *         the grid bean type
+     * @see SortKeyProvider
+     */
+    @FunctionalInterface
+    public interface FetchFilteredItemsAfterCallback<T> extends Serializable {
+
+        /**
+         * Returns a stream of items ordered by given sort orders, filtered by
+         * given filters, starting after the item with the given sort key, or
+         * at the given offset if the sort key is not known.
+         *
+         * @param sortOrder
+         *         a list of sort orders
+         * @param filters
+         *         a filter collection
+         * @param offset
+         *         the first index to fetch
+         * @param afterKey
+         *         the sort key of the item at {@code offset - 1} as given by
+         *         the {@link SortKeyProvider}, or {@code null} if the offset
+         *         must be used
+         * @param limit
+         *         the fetched item count
+         * @return stream of items
+         */
+        public Stream<T> fetchItems(List<QuerySortOrder> sortOrder,
+                FilterCollection filters, int offset, List<Object> afterKey,
+                int limit);
+    }
+
+    /**
+     * Provides the sort key of an item for keyset pagination. The sort key
+     * must identify the position of the item in the given sort order
+     * uniquely, so it usually ends with the identifier of the item.
+     *
+     * @param <T>
+     *         the grid bean type
+     */
+    @FunctionalInterface
+    public interface SortKeyProvider<T> extends Serializable {
+
+        /**
+         * Gets the sort key of the given item.
+         *
+         * @param item
+         *         the item
+         * @param sortOrder
+         *         the sort orders of the query that fetched the item
+         * @return the values that identify the position of the item
+         */
+        public List<Object> getSortKey(T item, List<QuerySortOrder> sortOrder);
+    }
+
     public static class Column<T, V> extends Grid.Column<T, V> {
 
+        private static final Object NULL_VALUE = new Object();
+
         private SerializableFunction<T, V> filterValueProvider = t ->
                 getValueProvider().apply(t);
 
         private Class<?> valueType;
 
+        private boolean filterIndexed;
+
+        private boolean filterValueCached;
+
+        private int filterCost = 1;
+
+        private transient volatile Map<Object, Object> filterValueCache;
+
 
         protected Column(ValueProvider<T, V> valueProvider,
                 Renderer<? super V> renderer) {
@@ -278,6 +402,14 @@ public class FilterGrid<T> extends Grid<T> {
         /**
          * Sets the given component as filter to the column and attaches it to
          * the column header.
+         * <p>
+         * If the column was added with a primitive value provider, for
+         * example with {@link FilterGrid#addIntColumn(IntValueProvider)
+         * addIntColumn()}, and the predicate is a primitive predicate of the
+         * same type, for example {@link
+         * org.vaadin.addons.filteringgrid.comparators.RangeComparator#intInterval()
+         * RangeComparator.intInterval()}, the filter reads and compares the
+         * values without boxing them.
          *
          * @param component
          *         the filtering component
@@ -291,9 +423,11 @@ public class FilterGrid<T> extends Grid<T> {
          */
         public <F, C extends HasValue<F> & Component> Column<T, V> setFilter(
                 C component, SerializableBiPredicate<V, F> filterPredicate) {
-            getGrid().addFilter(InMemoryFilter
-                    .wrapComponent(component, getValueProvider(),
-                            filterPredicate), this);
+            ValueProvider<T, V> valueProvider = isPrimitiveFilter(
+                    filterPredicate) ? getValueProvider()
+                    : cachedFilterValue(getValueProvider(), filterPredicate);
+            getGrid().addFilter(InMemoryFilter.wrapComponent(component,
+                    valueProvider, filterPredicate), this);
             return this;
         }
 
@@ -320,12 +454,187 @@ public class FilterGrid<T> extends Grid<T> {
                 ValueProvider<V, W> filterableValueProvider, C component,
                 SerializableBiPredicate<W, F> filterPredicate) {
             getGrid().addFilter(InMemoryFilter.wrapComponent(component,
-                    (T item) -> filterableValueProvider
+                    cachedFilterValue((T item) -> filterableValueProvider
                             .apply(getValueProvider().apply(item)),
-                    filterPredicate), this);
+                            filterPredicate), filterPredicate), this);
+            return this;
+        }
+
+        /**
+         * Sets whether the in-memory filter of this column is answered from
+         * a sorted index of the column values. The index is built when the
+         * filter is first used, and only with a {@link
+         * org.vaadin.addons.filteringgrid.columnar.ColumnarDataProvider
+         * ColumnarDataProvider}. Number and date interval filters are then
+         * answered with a binary search over the sorted values and
+         * case-insensitive contains filters with a trigram index, instead of
+         * a scan over every row, at the cost of keeping the index in memory.
+         *
+         * @param filterIndexed
+         *         {@code true} to index the filter, {@code false} to scan
+         *         the values
+         * @return this column
+         */
+        public Column<T, V> setFilterIndexed(boolean filterIndexed) {
+            this.filterIndexed = filterIndexed;
+            getGrid().filterPlan = null;
+            return this;
+        }
+
+        /**
+         * Sets whether the filterable value of each item is cached for the
+         * in-memory filter of this column. When enabled, the value provider
+         * and the conversion given to {@link #setFilter(ValueProvider,
+         * Component, SerializableBiPredicate) setFilter()} are run only once
+         * per item. Predicates that compare normalized values, like the
+         * case-insensitive ones of {@link
+         * org.vaadin.addons.filteringgrid.comparators.StringComparator
+         * StringComparator}, get the value already normalized. The cached
+         * value of an item is dropped when the item is refreshed with {@code
+         * refreshItem()}, and every value is dropped on {@code refreshAll()}.
+         * <p>
+         * The cache holds one value per item, so it is worth enabling for
+         * columns whose conversion is expensive compared to that memory.
+         * Filters that read primitive values without boxing them are never
+         * cached.
+         *
+         * @param filterValueCached
+         *         {@code true} to cache the filterable values, {@code false}
+         *         to compute them on every evaluation
+         * @return this column
+         */
+        public Column<T, V> setFilterValueCached(boolean filterValueCached) {
+            this.filterValueCached = filterValueCached;
+            filterValueCache = null;
             return this;
         }
 
+        /**
+         * Gets whether the filterable value of each item is cached for the
+         * in-memory filter of this column.
+         *
+         * @return {@code true} if the values are cached, otherwise {@code
+         * false}
+         * @see #setFilterValueCached(boolean)
+         */
+        public boolean isFilterValueCached() {
+            return filterValueCached;
+        }
+
+        /**
+         * Gets whether the in-memory filter of this column is answered from
+         * a sorted index.
+         *
+         * @return {@code true} if the filter is indexed, otherwise {@code
+         * false}
+         * @see #setFilterIndexed(boolean)
+         */
+        public boolean isFilterIndexed() {
+            return filterIndexed;
+        }
+
+        /**
+         * Sets a hint of the cost of evaluating the in-memory filter of this
+         * column for one item, relative to a simple comparison such as an
+         * enum equality, which costs {@code 1}. For example, a
+         * case-insensitive search in a long text could cost {@code 20}.
+         * <p>
+         * The grid evaluates cheap filters first so that fewer items reach
+         * the expensive ones. For large data sets the grid measures the
+         * actual cost and selectivity of the filters on a sample of the
+         * items whenever a filter value changes, and the measurement
+         * overrides the hint. The default cost is {@code 1}.
+         *
+         * @param filterCost
+         *         the relative cost, at least {@code 1}
+         * @return this column
+         * @see FilterGenerator#getFilterCost(Column)
+         */
+        public Column<T, V> setFilterCost(int filterCost) {
+            if (filterCost < 1) {
+                throw new IllegalArgumentException(
+                        "Filter cost must be at least 1");
+            }
+            this.filterCost = filterCost;
+            getGrid().filterPlan = null;
+            return this;
+        }
+
+        /**
+         * Gets the hint of the cost of evaluating the in-memory filter of
+         * this column.
+         *
+         * @return the relative cost
+         * @see #setFilterCost(int)
+         */
+        public int getFilterCost() {
+            return filterCost;
+        }
+
+        private boolean isPrimitiveFilter(
+                SerializableBiPredicate<?, ?> filterPredicate) {
+            ValueProvider<T, V> valueProvider = getValueProvider();
+            return filterPredicate instanceof IntFilterPredicate
+                    && valueProvider instanceof IntValueProvider
+                    || filterPredicate instanceof LongFilterPredicate
+                    && valueProvider instanceof LongValueProvider
+                    || filterPredicate instanceof DoubleFilterPredicate
+                    && valueProvider instanceof DoubleValueProvider;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <W> ValueProvider<T, W> cachedFilterValue(
+                ValueProvider<T, W> valueProvider,
+                SerializableBiPredicate<W, ?> filterPredicate) {
+            ValueProvider<W, Object> normalizer = filterPredicate instanceof NormalizingPredicate
+                    ? ((NormalizingPredicate<W, ?>) filterPredicate)::normalize
+                    : value -> value;
+            return item -> {
+                if (!filterValueCached) {
+                    return valueProvider.apply(item);
+                }
+                Object value = getFilterValueCache().computeIfAbsent(
+                        getGrid().getDataProvider().getId(item), id -> {
+                            Object normalized = normalizer
+                                    .apply(valueProvider.apply(item));
+                            return normalized == null ? NULL_VALUE : normalized;
+                        });
+                return value == NULL_VALUE ? null : (W) value;
+            };
+        }
+
+        /*
+         * The filters of a large data set are evaluated in the threads of
+         * the filtering pool, so the cache is created only once for all of
+         * them.
+         */
+        private Map<Object, Object> getFilterValueCache() {
+            Map<Object, Object> cache = filterValueCache;
+            if (cache == null) {
+                synchronized (this) {
+                    cache = filterValueCache;
+                    if (cache == null) {
+                        cache = new ConcurrentHashMap<>();
+                        filterValueCache = cache;
+                    }
+                }
+            }
+            return cache;
+        }
+
+        private void invalidateFilterValues(DataChangeEvent<T> event) {
+            Map<Object, Object> cache = filterValueCache;
+            if (cache == null) {
+                return;
+            }
+            if (event instanceof DataRefreshEvent) {
+                cache.remove(getGrid().getDataProvider()
+                        .getId(((DataRefreshEvent<T>) event).getItem()));
+            } else {
+                cache.clear();
+            }
+        }
+
         @Override
         @SuppressWarnings("unchecked")
         protected FilterGrid<T> getGrid() {
@@ -370,10 +679,13 @@ public class FilterGrid<T> extends Grid<T> {
         
     }
 
-    @SuppressWarnings("unchecked")
-    private final SerializableFunction<Collection<Filter<?>>, SerializablePredicate<T>> filterConverter = filters -> item -> filters
-            .stream().filter(InMemoryFilter.class::isInstance)
-            .map(f -> (InMemoryFilter<T, ?, ?>) f).allMatch(f -> f.test(item));
+    private static final String LOADING_STYLE_NAME = "loading";
+
+    private static final int ESTIMATED_SIZE_INCREMENT = 200;
+
+    private static final int KEYSET_BLOCK_SIZE = 100;
+
+    private static Executor defaultBackendExecutor;
 
     private final Collection<Filter<?>> filters = new HashSet<>();
 
@@ -389,6 +701,58 @@ public class FilterGrid<T> extends Grid<T> {
     
     private ListDataProvider<T> listDataProvider;
 
+    private transient InMemoryFilterPlan<T> filterPlan;
+
+    private int parallelFilteringThreshold;
+
+    private transient ForkJoinPool filteringPool;
+
+    private transient ParallelFilter parallelFilter;
+
+    private CountCache countCache;
+
+    private PageCache<T> pageCache;
+
+    private transient Executor backendExecutor;
+
+    private boolean countEstimated;
+
+    private transient FilterCollection estimatedSizeFilters;
+
+    private transient int estimatedSize;
+
+    private transient boolean estimatedSizeExact;
+
+    private transient int knownRowCount;
+
+    private transient int knownEndOffset;
+
+    private transient Map<Integer, List<Object>> sortKeyAnchors;
+
+    private transient FilterCollection sortKeyAnchorFilters;
+
+    private transient List<QuerySortOrder> sortKeyAnchorSortOrders;
+
+    private transient FilteredPage<T> firstPage;
+
+    private transient FilterCollection firstPageFilters;
+
+    private transient List<QuerySortOrder> firstPageSortOrders;
+
+    private transient int firstPageLimit;
+
+    private SerializableConsumer<FilterCollection> filterSnapshotConsumer;
+
+    private FilterGridMetrics metrics = FilterGridMetrics.NONE;
+
+    private transient boolean refreshPending;
+
+    private transient long refreshStartTime;
+
+    private int filterUpdateDepth;
+
+    private boolean filtersChanged;
+
 
     /**
      * Creates a new filtering grid without support for creating columns based
@@ -447,8 +811,10 @@ public class FilterGrid<T> extends Grid<T> {
      *         an in-memory data provider
      */
     public void setFilteredDataProvider(InMemoryDataProvider<T> dataProvider) {
-        internalSetDataProvider(dataProvider.withConvertedFilter(
-                filterConverter), filters);
+        internalSetDataProvider(new InMemoryFilteringDataProvider<>(
+                dataProvider, this::getFilterPlan, this::getParallelFilter,
+                this::onDataChange, this::getMetrics, this::completeRefresh),
+                filters);
     }
 
     /**
@@ -462,18 +828,370 @@ public class FilterGrid<T> extends Grid<T> {
     public void setFilteredDataProvider(
             FetchFilteredItemsCallback<T> fetchItems,
             CountFilteredItemsCallback sizeCallback) {
-        internalSetDataProvider(new CallbackDataProvider<T, FilterCollection>(
-                        q -> fetchItems.fetchItems(q.getSortOrders(),
-                                q.getFilter().orElse(FilterCollection.getEmpty()),
-                                q.getOffset(), q.getLimit()), q -> sizeCallback
-                        .countItems(q.getFilter().orElse(FilterCollection.getEmpty()))),
+        CallbackDataProvider<T, FilterCollection> dataProvider = new CallbackDataProvider<>(
+                q -> fetchItemsWithEstimate(fetchItems, q.getSortOrders(),
+                        q.getFilter().orElse(FilterCollection.getEmpty()),
+                        q.getOffset(), q.getLimit()),
+                q -> completeRefresh(countItemsWithEstimate(sizeCallback,
+                        q.getFilter().orElse(FilterCollection.getEmpty()))));
+        dataProvider.addDataProviderListener(this::clearBackendCaches);
+        filterSnapshotConsumer = internalSetDataProvider(dataProvider,
                 FilterCollection.createFrom(filters));
     }
 
+    /**
+     * Sets a filterable callback data provider for this grid that fetches
+     * items with keyset pagination. Items are fetched in blocks, and the
+     * grid remembers the sort key of the last item of each fetched block.
+     * A fetch that starts at a block whose previous block has been fetched
+     * receives that sort key as an anchor. When the grid jumps to an
+     * unknown position, the fetch receives only the offset.
+     *
+     * @param fetchItems
+     *         callback method for fetching items from the backend
+     * @param sizeCallback
+     *         callback method for counting items
+     * @param sortKeyProvider
+     *         provides the sort key of a fetched item
+     */
+    public void setFilteredDataProvider(
+            FetchFilteredItemsAfterCallback<T> fetchItems,
+            CountFilteredItemsCallback sizeCallback,
+            SortKeyProvider<T> sortKeyProvider) {
+        setFilteredDataProvider(
+                (sortOrders, filters, offset, limit) -> fetchItemsAfter(
+                        fetchItems, sortKeyProvider, sortOrders, filters,
+                        offset, limit), sizeCallback);
+    }
+
+    private Stream<T> fetchItemsAfter(
+            FetchFilteredItemsAfterCallback<T> fetchItems,
+            SortKeyProvider<T> sortKeyProvider,
+            List<QuerySortOrder> sortOrders, FilterCollection filters,
+            int offset, int limit) {
+        if (sortKeyAnchors == null || !filters.equals(sortKeyAnchorFilters)
+                || !isSameSorting(sortOrders, sortKeyAnchorSortOrders)) {
+            sortKeyAnchors = new HashMap<>();
+            sortKeyAnchorFilters = filters;
+            sortKeyAnchorSortOrders = sortOrders;
+        }
+        int firstBlock = offset / KEYSET_BLOCK_SIZE;
+        int blockOffset = firstBlock * KEYSET_BLOCK_SIZE;
+        List<Object> afterKey = firstBlock == 0 ? null
+                : sortKeyAnchors.get(firstBlock);
+        /*
+         * The fetch starts at the anchored block but ends with the requested
+         * range, which is within the size of the data set
+         */
+        List<T> items = fetchItems.fetchItems(sortOrders, filters,
+                blockOffset, afterKey, offset - blockOffset + limit)
+                .collect(Collectors.toList());
+
+        /* A block is anchored at the last item of the previous block */
+        for (int i = KEYSET_BLOCK_SIZE; i <= items.size();
+                i += KEYSET_BLOCK_SIZE) {
+            sortKeyAnchors.put(firstBlock + i / KEYSET_BLOCK_SIZE,
+                    sortKeyProvider.getSortKey(items.get(i - 1), sortOrders));
+        }
+        int from = Math.min(items.size(), offset - blockOffset);
+        return items.subList(from, Math.min(items.size(), from + limit))
+                .stream();
+    }
+
+    /**
+     * Sets a filterable callback data provider for this grid that fetches
+     * items and counts them with a single callback. When the grid needs the
+     * item count, it fetches the first page with the count and shows the
+     * first items from that page, so a filter change costs one backend call
+     * instead of two.
+     *
+     * @param fetchPage
+     *         callback method for fetching a page of items with the total
+     *         item count from the backend
+     */
+    public void setFilteredDataProvider(FetchFilteredPageCallback<T> fetchPage) {
+        CallbackDataProvider<T, FilterCollection> dataProvider = new CallbackDataProvider<>(
+                q -> fetchItems(
+                        (sortOrders, filters, offset, limit) -> fetchPage(
+                                fetchPage, sortOrders, filters, offset, limit),
+                        q.getSortOrders(),
+                        q.getFilter().orElse(FilterCollection.getEmpty()),
+                        q.getOffset(), q.getLimit()),
+                q -> completeRefresh(countItems(
+                        filters -> fetchFirstPage(fetchPage, filters),
+                        q.getFilter().orElse(FilterCollection.getEmpty()))));
+        dataProvider.addDataProviderListener(this::clearBackendCaches);
+        filterSnapshotConsumer = internalSetDataProvider(dataProvider,
+                FilterCollection.createFrom(filters));
+    }
+
+    private int fetchFirstPage(FetchFilteredPageCallback<T> fetchPage,
+            FilterCollection filters) {
+        List<QuerySortOrder> sortOrders = getDataCommunicator()
+                .getBackEndSorting();
+        int limit = getDataCommunicator().getMinPushSize();
+        if (pageCache != null) {
+            /*
+             * Whole cache blocks, so that the blocks the page cache asks for
+             * first are answered from this page
+             */
+            int blockSize = pageCache.getBlockSize();
+            limit = (limit + blockSize - 1) / blockSize * blockSize;
+        }
+        FilteredPage<T> page = fetchPage.fetchPage(sortOrders, filters, 0,
+                limit);
+        firstPage = page;
+        firstPageFilters = filters;
+        firstPageSortOrders = sortOrders;
+        firstPageLimit = limit;
+        return page.getTotalCount();
+    }
+
+    private Stream<T> fetchPage(FetchFilteredPageCallback<T> fetchPage,
+            List<QuerySortOrder> sortOrders, FilterCollection filters,
+            int offset, int limit) {
+        if (firstPage != null && filters.equals(firstPageFilters)
+                && isSameSorting(sortOrders, firstPageSortOrders)) {
+            List<T> items = firstPage.getItems();
+            if (offset + limit <= items.size() || items.size() < firstPageLimit) {
+                return items.subList(Math.min(offset, items.size()),
+                        Math.min(offset + limit, items.size())).stream();
+            }
+        }
+        return fetchPage.fetchPage(sortOrders, filters, offset, limit)
+                .getItems().stream();
+    }
+
+    private static boolean isSameSorting(List<QuerySortOrder> sortOrders,
+            List<QuerySortOrder> otherSortOrders) {
+        if (sortOrders.size() != otherSortOrders.size()) {
+            return false;
+        }
+        for (int i = 0; i < sortOrders.size(); i++) {
+            QuerySortOrder order = sortOrders.get(i);
+            QuerySortOrder other = otherSortOrders.get(i);
+            if (!order.getSorted().equals(other.getSorted())
+                    || order.getDirection() != other.getDirection()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets a filterable callback data provider for this grid that calls the
+     * callbacks on the {@link #setBackendExecutor(Executor) backend
+     * executor} instead of the request thread. A slow backend then doesn't
+     * block the user interface.
+     * <p>
+     * While the items for the current filter values are loading, the grid
+     * shows the items and size of the previous filter values and has the
+     * {@code loading} style name. When the items arrive, they are shown
+     * using {@link com.vaadin.ui.UI#access(com.vaadin.server.Command)
+     * UI.access()}, so server push or polling must be enabled for them to
+     * appear without a user action. Results for filter values that are no
+     * longer current are ignored. Queries made without a current UI call
+     * the callbacks on the calling thread.
+     *
+     * @param fetchItems
+     *         callback method for fetching items from the backend, called
+     *         from another thread
+     * @param sizeCallback
+     *         callback method for counting items, called from another thread
+     */
+    public void setAsyncFilteredDataProvider(
+            FetchFilteredItemsCallback<T> fetchItems,
+            CountFilteredItemsCallback sizeCallback) {
+        filterSnapshotConsumer = internalSetDataProvider(
+                new AsyncFilteringDataProvider<>(
+                        (sortOrders, filters, offset, limit) -> fetchItems(
+                                fetchItems, sortOrders, filters, offset,
+                                limit),
+                        filters -> countItems(sizeCallback, filters),
+                        this::getBackendExecutor, this::setLoading,
+                        event -> completeRefresh(0), this::clearBackendCaches),
+                FilterCollection.createFrom(filters));
+    }
+
+    private void clearBackendCaches(DataChangeEvent<T> event) {
+        sortKeyAnchors = null;
+        estimatedSizeFilters = null;
+        firstPage = null;
+        if (countCache != null) {
+            countCache.clear();
+        }
+        if (pageCache != null) {
+            pageCache.clear();
+        }
+    }
+
+    private void setLoading(boolean loading) {
+        if (loading) {
+            addStyleName(LOADING_STYLE_NAME);
+        } else {
+            removeStyleName(LOADING_STYLE_NAME);
+        }
+    }
+
+    private void startRefresh() {
+        if (!refreshPending && metrics != FilterGridMetrics.NONE) {
+            refreshPending = true;
+            refreshStartTime = System.nanoTime();
+        }
+    }
+
+    private int completeRefresh(int size) {
+        if (refreshPending) {
+            refreshPending = false;
+            metrics.refreshed(System.nanoTime() - refreshStartTime);
+        }
+        return size;
+    }
+
+    private int countItemsWithEstimate(CountFilteredItemsCallback sizeCallback,
+            FilterCollection filters) {
+        if (!countEstimated) {
+            return countItems(sizeCallback, filters);
+        }
+        if (!filters.equals(estimatedSizeFilters)) {
+            estimatedSize = Math.max(countItems(sizeCallback, filters),
+                    getDataCommunicator().getMinPushSize());
+            estimatedSizeExact = false;
+            knownRowCount = 0;
+            knownEndOffset = Integer.MAX_VALUE;
+            estimatedSizeFilters = filters;
+        }
+        return estimatedSize;
+    }
+
+    private Stream<T> fetchItemsWithEstimate(
+            FetchFilteredItemsCallback<T> fetchItems,
+            List<QuerySortOrder> sortOrders, FilterCollection filters,
+            int offset, int limit) {
+        Stream<T> stream = fetchItems(fetchItems, sortOrders, filters, offset,
+                limit);
+        if (!countEstimated || !filters.equals(estimatedSizeFilters)) {
+            return stream;
+        }
+        List<T> items = stream.collect(Collectors.toList());
+        if (!items.isEmpty()) {
+            knownRowCount = Math.max(knownRowCount, offset + items.size());
+        }
+        if (items.size() < limit
+                && (!items.isEmpty() || offset <= knownRowCount)) {
+            /* The end of the data set was reached */
+            int size = offset + items.size();
+            if (size != estimatedSize || !estimatedSizeExact) {
+                estimatedSize = size;
+                estimatedSizeExact = true;
+                getDataCommunicator().reset();
+            }
+        } else if (items.isEmpty()) {
+            /*
+             * The data set ends somewhere between the known rows and the
+             * offset, so the size is halved towards the known rows until a
+             * fetch finds the end
+             */
+            knownEndOffset = Math.min(knownEndOffset, offset);
+            estimatedSize = knownRowCount
+                    + (knownEndOffset - knownRowCount) / 2;
+            estimatedSizeExact = false;
+            getDataCommunicator().reset();
+        } else if (!estimatedSizeExact
+                && offset + 2 * limit > estimatedSize) {
+            int size = (int) Math.min(knownEndOffset,
+                    (long) offset + limit + ESTIMATED_SIZE_INCREMENT);
+            if (size != estimatedSize) {
+                estimatedSize = size;
+                getDataCommunicator().reset();
+            }
+        }
+        return items.stream();
+    }
+
+    private Stream<T> fetchItems(FetchFilteredItemsCallback<T> fetchItems,
+            List<QuerySortOrder> sortOrders, FilterCollection filters,
+            int offset, int limit) {
+        FilterGridMetrics metrics = this.metrics;
+        if (pageCache == null) {
+            return fetchItems(fetchItems, metrics, sortOrders, filters, offset,
+                    limit);
+        }
+        boolean[] missed = new boolean[1];
+        Stream<T> items = pageCache.fetch(filters, sortOrders, offset, limit,
+                (blockOffset, blockLimit) -> {
+                    missed[0] = true;
+                    return fetchItems(fetchItems, metrics, sortOrders,
+                            filters, blockOffset, blockLimit);
+                });
+        metrics.cacheAccessed(Cache.PAGE, !missed[0]);
+        return items;
+    }
+
+    private Stream<T> fetchItems(FetchFilteredItemsCallback<T> fetchItems,
+            FilterGridMetrics metrics, List<QuerySortOrder> sortOrders,
+            FilterCollection filters, int offset, int limit) {
+        if (metrics == FilterGridMetrics.NONE) {
+            return fetchItems.fetchItems(sortOrders, filters, offset, limit);
+        }
+        long start = System.nanoTime();
+        List<T> items = fetchItems.fetchItems(sortOrders, filters, offset,
+                limit).collect(Collectors.toList());
+        metrics.itemsFetched(System.nanoTime() - start, items.size());
+        return items.stream();
+    }
+
+    private int countItems(CountFilteredItemsCallback sizeCallback,
+            FilterCollection filters) {
+        FilterGridMetrics metrics = this.metrics;
+        if (countCache == null) {
+            return countItems(sizeCallback, metrics, filters);
+        }
+        boolean[] missed = new boolean[1];
+        int count = countCache.getCount(filters, () -> {
+            missed[0] = true;
+            return countItems(sizeCallback, metrics, filters);
+        });
+        metrics.cacheAccessed(Cache.COUNT, !missed[0]);
+        return count;
+    }
+
+    private static int countItems(CountFilteredItemsCallback sizeCallback,
+            FilterGridMetrics metrics, FilterCollection filters) {
+        if (metrics == FilterGridMetrics.NONE) {
+            return sizeCallback.countItems(filters);
+        }
+        long start = System.nanoTime();
+        int count = sizeCallback.countItems(filters);
+        metrics.itemsCounted(System.nanoTime() - start);
+        return count;
+    }
+
     @Override
     public void setItems(Collection<T> items) {
         listDataProvider = DataProvider.ofCollection(items); 
-        internalSetDataProvider(listDataProvider.withConvertedFilter(filterConverter), filters);
+        setFilteredDataProvider(listDataProvider);
+    }
+
+    @Override
+    protected <F> SerializableConsumer<F> internalSetDataProvider(
+            DataProvider<T, F> dataProvider, F initialFilter) {
+        DataProvider<T, ?> previous = getDataProvider();
+        if (previous instanceof InMemoryFilteringDataProvider
+                && previous != dataProvider) {
+            ((InMemoryFilteringDataProvider<?>) previous).release();
+        }
+        filterSnapshotConsumer = null;
+        /* Nothing cached for the previous backend applies to the new one */
+        clearBackendCaches(null);
+        onDataChange(new DataChangeEvent<>(dataProvider));
+        return super.internalSetDataProvider(dataProvider, initialFilter);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onDataChange(DataChangeEvent<T> event) {
+        getColumns().forEach(column -> ((Column<T, ?>) column)
+                .invalidateFilterValues(event));
     }
 
     private <C extends Filter<?> & Component> void addFilter(C filter,
@@ -497,8 +1215,117 @@ public class FilterGrid<T> extends Grid<T> {
         }
 
         filters.add(filter);
+        filterPlan = null;
         filterRegistrations.put(filter, filter.addValueChangeListener(
-                event -> getDataProvider().refreshAll()));
+                event -> onFilterValueChange()));
+        updateFilterSnapshot();
+    }
+
+    /**
+     * Runs the given update with the data refreshes of filter value changes
+     * suspended. The grid is refreshed once after the update if any filter
+     * value changed or a filter was added or removed during it. Calls can be
+     * nested, in which case the refresh happens when the outermost update
+     * completes.
+     *
+     * @param update
+     *         the code that changes filter values, not {@code null}
+     */
+    public void updateFilters(Runnable update) {
+        filterUpdateDepth++;
+        try {
+            update.run();
+        } finally {
+            filterUpdateDepth--;
+            if (filterUpdateDepth == 0 && filtersChanged) {
+                filtersChanged = false;
+                onFilterValueChange();
+            }
+        }
+    }
+
+    /**
+     * Sets the values of several filters and refreshes the grid once. The
+     * filters are identified by their keys and must be {@link
+     * FilterComponentWrapper component filters}. A {@code null} value clears
+     * the filter component.
+     *
+     * @param values
+     *         the new values by filter key
+     * @throws IllegalArgumentException
+     *         if there is no component filter with one of the keys
+     */
+    public void setFilterValues(Map<String, ?> values) {
+        Map<HasValue<Object>, Object> components = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            Filter<?> filter = filters.stream()
+                    .filter(f -> f.getKey().equals(key)).findAny()
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "No filter with key " + key));
+            if (!(filter instanceof FilterComponentWrapper)) {
+                throw new IllegalArgumentException(
+                        "Filter " + key + " is not a component filter");
+            }
+            components.put(getValueComponent(filter), value);
+        });
+        updateFilters(() -> components.forEach((component, value) -> component
+                .setValue(value != null ? value : component.getEmptyValue())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HasValue<Object> getValueComponent(Filter<?> filter) {
+        return (HasValue<Object>) ((FilterComponentWrapper<?, ?>) filter)
+                .getWrappedComponent();
+    }
+
+    private void onFilterValueChange() {
+        filterPlan = null;
+        if (filterUpdateDepth > 0) {
+            filtersChanged = true;
+            return;
+        }
+        startRefresh();
+        if (getDataProvider() instanceof InMemoryFilteringDataProvider) {
+            ((InMemoryFilteringDataProvider<?>) getDataProvider())
+                    .refreshFilters();
+        } else if (filterSnapshotConsumer != null) {
+            updateFilterSnapshot();
+        } else {
+            getDataProvider().refreshAll();
+        }
+    }
+
+    private void updateFilterSnapshot() {
+        if (filterUpdateDepth > 0) {
+            filtersChanged = true;
+        } else if (filterSnapshotConsumer != null) {
+            if (pageCache != null) {
+                pageCache.clear();
+            }
+            filterSnapshotConsumer.accept(FilterCollection.createFrom(filters));
+        }
+    }
+
+    private InMemoryFilterPlan<T> getFilterPlan(
+            Collection<Filter<?>> filters) {
+        if (filterPlan == null) {
+            filterPlan = InMemoryFilterPlan.compile(filters,
+                    this::isFilterIndexed, this::getFilterCost);
+        }
+        return filterPlan;
+    }
+
+    private int getFilterCost(Filter<?> filter) {
+        return columnFilters.entrySet().stream()
+                .filter(entry -> entry.getValue() == filter).findAny()
+                .map(entry -> entry.getKey().getFilterCost())
+                .orElse(1);
+    }
+
+    private boolean isFilterIndexed(Filter<?> filter) {
+        return columnFilters.entrySet().stream()
+                .anyMatch(entry -> entry.getValue() == filter
+                        && entry.getKey().isFilterIndexed());
     }
 
     private <C extends Filter<?> & Component> void removeFilter(C filter,
@@ -516,8 +1343,10 @@ public class FilterGrid<T> extends Grid<T> {
      */
     public void removeFilter(Filter<?> filter) {
         filters.remove(filter);
+        filterPlan = null;
         Optional.ofNullable(filterRegistrations.remove(filter))
                 .ifPresent(Registration::remove);
+        updateFilterSnapshot();
     }
 
     @Override
@@ -563,6 +1392,55 @@ public class FilterGrid<T> extends Grid<T> {
                 .addColumn(valueProvider, presentationProvider, renderer);
     }
 
+    /**
+     * Adds a new column that shows the primitive {@code int} values given by
+     * the value provider. A filter set to the column with an {@link
+     * IntFilterPredicate}, such as {@link
+     * org.vaadin.addons.filteringgrid.comparators.RangeComparator#intInterval()
+     * RangeComparator.intInterval()}, evaluates the values without boxing
+     * them.
+     *
+     * @param valueProvider
+     *         the value provider of the column
+     * @return the new column
+     */
+    public Column<T, Integer> addIntColumn(IntValueProvider<T> valueProvider) {
+        return addColumn(valueProvider).setValueType(Integer.class);
+    }
+
+    /**
+     * Adds a new column that shows the primitive {@code long} values given
+     * by the value provider. A filter set to the column with a {@link
+     * LongFilterPredicate}, such as {@link
+     * org.vaadin.addons.filteringgrid.comparators.RangeComparator#longInterval()
+     * RangeComparator.longInterval()}, evaluates the values without boxing
+     * them.
+     *
+     * @param valueProvider
+     *         the value provider of the column
+     * @return the new column
+     */
+    public Column<T, Long> addLongColumn(LongValueProvider<T> valueProvider) {
+        return addColumn(valueProvider).setValueType(Long.class);
+    }
+
+    /**
+     * Adds a new column that shows the primitive {@code double} values given
+     * by the value provider. A filter set to the column with a {@link
+     * DoubleFilterPredicate}, such as {@link
+     * org.vaadin.addons.filteringgrid.comparators.RangeComparator#doubleInterval()
+     * RangeComparator.doubleInterval()}, evaluates the values without boxing
+     * them.
+     *
+     * @param valueProvider
+     *         the value provider of the column
+     * @return the new column
+     */
+    public Column<T, Double> addDoubleColumn(
+            DoubleValueProvider<T> valueProvider) {
+        return addColumn(valueProvider).setValueType(Double.class);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <V extends Component> Column<T, V> addComponentColumn(
@@ -602,10 +1480,26 @@ public class FilterGrid<T> extends Grid<T> {
      */
     public void clearFilters() {
         filters.clear();
+        filterRegistrations.values().forEach(Registration::remove);
         filterRegistrations.clear();
         columnFilters.clear();
+        /* Publishes the empty filter state like a filter value change */
+        onFilterValueChange();
     }
     
+    /**
+     * Gets the filter of a column, for example to find out the key of a
+     * generated filter.
+     *
+     * @param column
+     *         grid column
+     * @return the filter of the column, or {@code null} if the column has no
+     * filter
+     */
+    public Filter<?> getFilter(Grid.Column<?, ?> column) {
+        return columnFilters.get(column);
+    }
+
     /**
      * gets filter field component for the Column
      * @param key grid column
@@ -659,6 +1553,240 @@ public class FilterGrid<T> extends Grid<T> {
         new FilterFieldGenerator(this).initializeFilterFields();
     }
     
+    /**
+     * Sets the number of in-memory items from which filtering is split
+     * across the threads of the {@link #setFilteringPool(ForkJoinPool)
+     * filtering pool}. Smaller data sets are filtered sequentially in the
+     * request thread. The filtered items keep their original order. By
+     * default, filtering is always sequential.
+     * <p>
+     * The filter predicates and value providers must be safe to call from
+     * several threads when parallel filtering is enabled.
+     *
+     * @param threshold
+     *         the smallest item count that is filtered in parallel, or
+     *         {@code 0} to always filter sequentially
+     */
+    public void setParallelFilteringThreshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException(
+                    "Threshold must not be negative");
+        }
+        parallelFilteringThreshold = threshold;
+        parallelFilter = null;
+    }
+
+    /**
+     * Gets the number of in-memory items from which filtering is done in
+     * parallel.
+     *
+     * @return the parallel filtering threshold, {@code 0} if filtering is
+     * always sequential
+     * @see #setParallelFilteringThreshold(int)
+     */
+    public int getParallelFilteringThreshold() {
+        return parallelFilteringThreshold;
+    }
+
+    /**
+     * Sets the pool that filters large in-memory data sets in parallel.
+     *
+     * @param filteringPool
+     *         the fork-join pool to use, or {@code null} to use the common
+     *         pool
+     * @see #setParallelFilteringThreshold(int)
+     */
+    public void setFilteringPool(ForkJoinPool filteringPool) {
+        this.filteringPool = filteringPool;
+        parallelFilter = null;
+    }
+
+    /**
+     * Gets the pool that filters large in-memory data sets in parallel.
+     *
+     * @return the fork-join pool
+     */
+    public ForkJoinPool getFilteringPool() {
+        return filteringPool != null ? filteringPool
+                : ForkJoinPool.commonPool();
+    }
+
+    private ParallelFilter getParallelFilter() {
+        if (parallelFilteringThreshold == 0) {
+            return null;
+        }
+        if (parallelFilter == null) {
+            parallelFilter = new ParallelFilter(getFilteringPool(),
+                    parallelFilteringThreshold);
+        }
+        return parallelFilter;
+    }
+
+    /**
+     * Sets the cache of item counts for a grid with a {@link
+     * #setFilteredDataProvider(FetchFilteredItemsCallback,
+     * CountFilteredItemsCallback) callback data provider}. Counts are cached
+     * by the keys and current values of the filters, so returning to an
+     * earlier filter state doesn't call the count callback again while the
+     * cached count is valid. The cache is cleared when the data provider is
+     * refreshed with {@code refreshAll()} or {@code refreshItem()}, but not
+     * when a filter value changes. By default, counts are not cached.
+     *
+     * @param countCache
+     *         the count cache to use, or {@code null} to always call the
+     *         count callback
+     */
+    public void setCountCache(CountCache countCache) {
+        this.countCache = countCache;
+    }
+
+    /**
+     * Gets the cache of item counts.
+     *
+     * @return the count cache, or {@code null} if counts are not cached
+     * @see #setCountCache(CountCache)
+     */
+    public CountCache getCountCache() {
+        return countCache;
+    }
+
+    /**
+     * Sets whether the count callback of a {@link
+     * #setFilteredDataProvider(FetchFilteredItemsCallback,
+     * CountFilteredItemsCallback) callback data provider} returns an
+     * estimate instead of the exact item count. An estimate can be much
+     * cheaper to compute for a large filtered data set, for example from the
+     * query planner of a database.
+     * <p>
+     * With an estimated count, the grid starts with the estimated size and
+     * grows it while the user scrolls near the end of the known rows. When a
+     * fetch returns some but fewer items than requested, the size is
+     * corrected to the exact item count. When a fetch past the end of the
+     * data set returns no items, the size is lowered towards the rows known
+     * to exist until a fetch finds the end. The scroll bar is therefore only
+     * approximate until the end of the data set has been reached. By
+     * default, the count is exact.
+     *
+     * @param countEstimated
+     *         {@code true} if the count callback returns an estimate or a
+     *         lower bound, {@code false} if it returns the exact count
+     */
+    public void setCountEstimated(boolean countEstimated) {
+        this.countEstimated = countEstimated;
+        estimatedSizeFilters = null;
+    }
+
+    /**
+     * Gets whether the count callback returns an estimate instead of the
+     * exact item count.
+     *
+     * @return {@code true} if the count is an estimate
+     * @see #setCountEstimated(boolean)
+     */
+    public boolean isCountEstimated() {
+        return countEstimated;
+    }
+
+    /**
+     * Sets the cache of fetched items for a grid with a {@link
+     * #setFilteredDataProvider(FetchFilteredItemsCallback,
+     * CountFilteredItemsCallback) callback data provider}. Items are fetched
+     * and cached in blocks, so requests for ranges that overlap earlier
+     * requests with the same filter values and sort order only fetch the
+     * missing blocks. The cache is cleared when a filter value changes and
+     * when the data provider is refreshed. By default, items are not cached.
+     *
+     * @param pageCache
+     *         the page cache to use, or {@code null} to always call the
+     *         fetch callback
+     */
+    public void setPageCache(PageCache<T> pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    /**
+     * Gets the cache of fetched items.
+     *
+     * @return the page cache, or {@code null} if items are not cached
+     * @see #setPageCache(PageCache)
+     */
+    public PageCache<T> getPageCache() {
+        return pageCache;
+    }
+
+    /**
+     * Sets the executor that runs the callbacks of an {@link
+     * #setAsyncFilteredDataProvider(FetchFilteredItemsCallback,
+     * CountFilteredItemsCallback) asynchronous data provider}.
+     *
+     * @param backendExecutor
+     *         the executor to use, or {@code null} to use the default
+     *         executor
+     */
+    public void setBackendExecutor(Executor backendExecutor) {
+        this.backendExecutor = backendExecutor;
+    }
+
+    /**
+     * Gets the executor that runs the callbacks of an asynchronous data
+     * provider. By default, each callback runs in a new virtual thread when
+     * the Java runtime supports them, and otherwise in a shared pool of
+     * daemon threads.
+     *
+     * @return the backend executor
+     */
+    public Executor getBackendExecutor() {
+        return backendExecutor != null ? backendExecutor
+                : getDefaultBackendExecutor();
+    }
+
+    private static synchronized Executor getDefaultBackendExecutor() {
+        if (defaultBackendExecutor == null) {
+            try {
+                defaultBackendExecutor = (Executor) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+            } catch (ReflectiveOperationException e) {
+                defaultBackendExecutor = Executors.newCachedThreadPool(task -> {
+                    Thread thread = new Thread(task, "filter-grid-backend");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+        return defaultBackendExecutor;
+    }
+
+    /**
+     * Sets the listener that receives the performance measurements of this
+     * grid: the time from a filter value change to the refreshed item count,
+     * the evaluation time and selectivity of the in-memory filters, the
+     * latency of fetching and counting items, and the hit ratios of the
+     * {@link #setCountCache(CountCache) count} and {@link
+     * #setPageCache(PageCache) page} caches. By default, nothing is
+     * measured.
+     *
+     * @param metrics
+     *         the metrics listener, or {@code null} to not measure anything
+     * @see org.vaadin.addons.filteringgrid.metrics.HistogramMetrics
+     */
+    public void setMetrics(FilterGridMetrics metrics) {
+        this.metrics = metrics != null ? metrics : FilterGridMetrics.NONE;
+        refreshPending = false;
+    }
+
+    /**
+     * Gets the listener that receives the performance measurements of this
+     * grid.
+     *
+     * @return the metrics listener, {@link FilterGridMetrics#NONE} if
+     * nothing is measured
+     * @see #setMetrics(FilterGridMetrics)
+     */
+    public FilterGridMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Returns original list data provider
      * @return
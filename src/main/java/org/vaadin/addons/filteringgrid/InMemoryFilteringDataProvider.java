@@ -0,0 +1,353 @@
+package org.vaadin.addons.filteringgrid;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.vaadin.addons.filteringgrid.columnar.ColumnarDataProvider;
+import org.vaadin.addons.filteringgrid.filters.Filter;
+import org.vaadin.addons.filteringgrid.filters.InMemoryFilterPlan;
+import org.vaadin.addons.filteringgrid.filters.ParallelFilter;
+import org.vaadin.addons.filteringgrid.metrics.FilterGridMetrics;
+
+import com.vaadin.data.provider.DataChangeEvent;
+import com.vaadin.data.provider.DataProviderWrapper;
+import com.vaadin.data.provider.InMemoryDataProvider;
+import com.vaadin.data.provider.ListDataProvider;
+import com.vaadin.data.provider.Query;
+import com.vaadin.server.SerializableConsumer;
+import com.vaadin.server.SerializableFunction;
+import com.vaadin.server.SerializablePredicate;
+import com.vaadin.server.SerializableSupplier;
+import com.vaadin.shared.Registration;
+
+/**
+ * Wrapper around an in-memory data provider that filters the items with the
+ * grid's {@link InMemoryFilterPlan} and keeps the result of the latest plan.
+ * <p>
+ * Size and fetch queries for the same filter state are served from the kept
+ * result. When a new plan {@link InMemoryFilterPlan#isRefinementOf(InMemoryFilterPlan)
+ * narrows down} the previous one, only the previous result is filtered again
+ * instead of the whole data set. The kept result is dropped whenever the
+ * wrapped data provider reports a data change.
+ * <p>
+ * Before a new plan is evaluated against a large number of items, its
+ * filters are {@link InMemoryFilterPlan#adaptOrder(List) ordered} by their
+ * cost and selectivity on a sample of those items. When a filter of the plan
+ * {@link InMemoryFilterPlan#isTimedOut() times out} during the evaluation,
+ * all items are evaluated again, so that the filter is disabled for every
+ * item instead of only for the items evaluated after the timeout.
+ * <p>
+ * Filter evaluations and fetches are reported to the grid's {@link
+ * FilterGridMetrics}.
+ *
+ * @param <T>
+ *         the grid bean type
+ */
+class InMemoryFilteringDataProvider<T> extends
+        DataProviderWrapper<T, Collection<Filter<?>>, SerializablePredicate<T>> {
+
+    /*
+     * Smaller item counts are filtered in the order of the cost hints, since
+     * measuring the filters would cost more than it saves.
+     */
+    private static final int ADAPTIVE_ORDER_THRESHOLD = 4
+            * InMemoryFilterPlan.SAMPLE_SIZE;
+
+    private final InMemoryDataProvider<T> inMemoryDataProvider;
+
+    private final SerializableFunction<Collection<Filter<?>>, InMemoryFilterPlan<T>> planProvider;
+
+    private final SerializableSupplier<ParallelFilter> parallelFilterProvider;
+
+    private final SerializableSupplier<FilterGridMetrics> metricsProvider;
+
+    private final SerializableConsumer<Integer> sizeListener;
+
+    private final Registration dataChangeRegistration;
+
+    private boolean refreshingFilters;
+
+    private transient InMemoryFilterPlan<T> resultPlan;
+
+    private transient List<T> result;
+
+    private transient int[] resultRows;
+
+    /**
+     * Creates a new filtering wrapper.
+     *
+     * @param dataProvider
+     *         the wrapped in-memory data provider
+     * @param planProvider
+     *         function that gives the current filter plan for the grid's
+     *         filters
+     * @param parallelFilterProvider
+     *         supplier of the grid's parallel filter, which supplies {@code
+     *         null} when the items are filtered sequentially
+     * @param dataChangeListener
+     *         listener that is notified when the wrapped data provider
+     *         reports a data change
+     * @param metricsProvider
+     *         supplier of the grid's metrics listener
+     * @param sizeListener
+     *         listener that is notified with the item count whenever a size
+     *         query has been answered
+     */
+    InMemoryFilteringDataProvider(InMemoryDataProvider<T> dataProvider,
+            SerializableFunction<Collection<Filter<?>>, InMemoryFilterPlan<T>> planProvider,
+            SerializableSupplier<ParallelFilter> parallelFilterProvider,
+            SerializableConsumer<DataChangeEvent<T>> dataChangeListener,
+            SerializableSupplier<FilterGridMetrics> metricsProvider,
+            SerializableConsumer<Integer> sizeListener) {
+        super(dataProvider);
+        this.inMemoryDataProvider = dataProvider;
+        this.planProvider = planProvider;
+        this.parallelFilterProvider = parallelFilterProvider;
+        this.metricsProvider = metricsProvider;
+        this.sizeListener = sizeListener;
+        dataChangeRegistration = dataProvider.addDataProviderListener(event -> {
+            if (!refreshingFilters) {
+                clearResult();
+                if (dataProvider instanceof ColumnarDataProvider) {
+                    ((ColumnarDataProvider<T>) dataProvider).invalidate();
+                }
+                dataChangeListener.accept(event);
+            }
+        });
+    }
+
+    @Override
+    protected SerializablePredicate<T> getFilter(
+            Query<T, Collection<Filter<?>>> query) {
+        InMemoryFilterPlan<T> plan = getPlan(query);
+        return plan.isEmpty() ? null : plan;
+    }
+
+    @Override
+    public int size(Query<T, Collection<Filter<?>>> query) {
+        int size = countIndexed(query);
+        if (size < 0) {
+            size = getFilteredItems(query).size();
+        }
+        sizeListener.accept(size);
+        return size;
+    }
+
+    @Override
+    public Stream<T> fetch(Query<T, Collection<Filter<?>>> query) {
+        FilterGridMetrics metrics = metricsProvider.get();
+        if (metrics == FilterGridMetrics.NONE) {
+            return fetchFilteredItems(query);
+        }
+        long start = System.nanoTime();
+        List<T> items = fetchFilteredItems(query).collect(Collectors.toList());
+        metrics.itemsFetched(System.nanoTime() - start, items.size());
+        return items.stream();
+    }
+
+    private Stream<T> fetchFilteredItems(
+            Query<T, Collection<Filter<?>>> query) {
+        Stream<T> stream = getFilteredItems(query).stream();
+
+        Optional<Comparator<T>> comparing = Stream
+                .<Comparator<T>> of(query.getInMemorySorting(),
+                        inMemoryDataProvider.getSortComparator())
+                .filter(Objects::nonNull)
+                .reduce((c1, c2) -> c1.thenComparing(c2));
+
+        if (comparing.isPresent()) {
+            stream = stream.sorted(comparing.get());
+        }
+
+        return stream.skip(query.getOffset()).limit(query.getLimit());
+    }
+
+    /**
+     * Refreshes the grid after a filter value change without dropping the
+     * kept result, so that the next plan can be evaluated against it.
+     */
+    void refreshFilters() {
+        refreshingFilters = true;
+        try {
+            refreshAll();
+        } finally {
+            refreshingFilters = false;
+        }
+    }
+
+    /**
+     * Stops listening to the wrapped data provider. Called when the wrapper
+     * is no longer used by the grid.
+     */
+    void release() {
+        dataChangeRegistration.remove();
+        clearResult();
+    }
+
+    private void clearResult() {
+        result = null;
+        resultRows = null;
+        resultPlan = null;
+    }
+
+    private InMemoryFilterPlan<T> getPlan(
+            Query<T, Collection<Filter<?>>> query) {
+        return query.getFilter().map(planProvider).orElseGet(
+                () -> InMemoryFilterPlan.compile(Collections.emptyList()));
+    }
+
+    /*
+     * A single indexed range filter is counted from its index without
+     * collecting the rows, unless the rows are already at hand.
+     */
+    private int countIndexed(Query<T, Collection<Filter<?>>> query) {
+        if (!(inMemoryDataProvider instanceof ColumnarDataProvider)) {
+            return -1;
+        }
+        InMemoryFilterPlan<T> plan = getPlan(query);
+        if (result != null && plan == resultPlan) {
+            return -1;
+        }
+        return ((ColumnarDataProvider<T>) inMemoryDataProvider)
+                .countRows(plan);
+    }
+
+    private List<T> getFilteredItems(Query<T, Collection<Filter<?>>> query) {
+        InMemoryFilterPlan<T> plan = getPlan(query);
+        if (result == null || plan != resultPlan) {
+            FilterGridMetrics metrics = metricsProvider.get();
+            boolean measured = metrics != FilterGridMetrics.NONE;
+            if (measured) {
+                plan.enableStatistics();
+                plan.resetStatistics();
+            }
+            long start = System.nanoTime();
+            long[] scanned = new long[1];
+            boolean refinement = result != null
+                    && plan.isRefinementOf(resultPlan);
+            adaptFilterOrder(plan, refinement);
+            boolean timedOut = plan.isTimedOut();
+            evaluate(plan, refinement, measured, scanned);
+            if (!timedOut && plan.isTimedOut()) {
+                /*
+                 * Items rejected before the timeout would stay rejected, so
+                 * all items are evaluated again with the filter disabled
+                 */
+                plan.resetStatistics();
+                scanned[0] = 0;
+                evaluate(plan, false, measured, scanned);
+            }
+            resultPlan = plan;
+            if (measured) {
+                metrics.filtersEvaluated(System.nanoTime() - start,
+                        (int) scanned[0], result.size());
+                for (int i = 0; i < plan.size(); i++) {
+                    if (plan.getEvaluatedCount(i) > 0) {
+                        metrics.filterEvaluated(plan.getKey(i),
+                                plan.getEvaluatedCount(i),
+                                plan.getPassedCount(i));
+                    }
+                }
+                plan.resetStatistics();
+            }
+        }
+        return result;
+    }
+
+    private void evaluate(InMemoryFilterPlan<T> plan, boolean refinement,
+            boolean measured, long[] scanned) {
+        ParallelFilter parallelFilter = parallelFilterProvider.get();
+        if (inMemoryDataProvider instanceof ColumnarDataProvider) {
+            ColumnarDataProvider<T> columnar = (ColumnarDataProvider<T>) inMemoryDataProvider;
+            scanned[0] = refinement ? resultRows.length
+                    : columnar.getRowCount();
+            resultRows = columnar.filterRows(plan,
+                    refinement ? resultRows : null, parallelFilter);
+            result = columnar.getRows(resultRows);
+        } else if (parallelFilter != null && !plan.isEmpty()) {
+            List<T> items = refinement ? result
+                    : getAllItems().collect(Collectors.toList());
+            scanned[0] = items.size();
+            result = parallelFilter.filter(items, plan);
+        } else {
+            Stream<T> stream = refinement ? result.stream() : getAllItems();
+            if (measured) {
+                stream = stream.peek(item -> scanned[0]++);
+            }
+            if (!plan.isEmpty()) {
+                stream = stream.filter(plan);
+            }
+            result = stream.collect(Collectors.toList());
+        }
+    }
+
+    private void adaptFilterOrder(InMemoryFilterPlan<T> plan,
+            boolean refinement) {
+        if (plan.size() < 2) {
+            return;
+        }
+        if (inMemoryDataProvider instanceof ColumnarDataProvider) {
+            ColumnarDataProvider<T> columnar = (ColumnarDataProvider<T>) inMemoryDataProvider;
+            int count = refinement ? resultRows.length
+                    : columnar.getRowCount();
+            if (count >= ADAPTIVE_ORDER_THRESHOLD) {
+                int[] rows = sampleIndices(count);
+                if (refinement) {
+                    for (int i = 0; i < rows.length; i++) {
+                        rows[i] = resultRows[rows[i]];
+                    }
+                }
+                plan.adaptOrder(columnar.getRows(rows));
+            }
+            return;
+        }
+        Collection<T> items = refinement ? result
+                : inMemoryDataProvider instanceof ListDataProvider
+                        ? ((ListDataProvider<T>) inMemoryDataProvider).getItems()
+                        : null;
+        if (items == null || items.size() < ADAPTIVE_ORDER_THRESHOLD) {
+            return;
+        }
+        List<T> sample;
+        if (items instanceof List && items instanceof RandomAccess) {
+            List<T> list = (List<T>) items;
+            sample = Arrays.stream(sampleIndices(list.size()))
+                    .mapToObj(list::get).collect(Collectors.toList());
+        } else {
+            sample = items.stream().limit(InMemoryFilterPlan.SAMPLE_SIZE)
+                    .collect(Collectors.toList());
+        }
+        plan.adaptOrder(sample);
+    }
+
+    /*
+     * Indices spread evenly over the given count, so that a sorted data set
+     * is sampled from end to end.
+     */
+    private static int[] sampleIndices(int count) {
+        int[] indices = new int[Math.min(count, InMemoryFilterPlan.SAMPLE_SIZE)];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = (int) ((long) i * count / indices.length);
+        }
+        return indices;
+    }
+
+    private Stream<T> getAllItems() {
+        if (inMemoryDataProvider instanceof ListDataProvider) {
+            // Skip the sorting that ListDataProvider.fetch() would do
+            Stream<T> items = ((ListDataProvider<T>) inMemoryDataProvider)
+                    .getItems().stream();
+            SerializablePredicate<T> filter = inMemoryDataProvider.getFilter();
+            return filter == null ? items : items.filter(filter);
+        }
+        return inMemoryDataProvider.fetch(new Query<>());
+    }
+}
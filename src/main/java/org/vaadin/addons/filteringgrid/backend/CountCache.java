@@ -0,0 +1,140 @@
+package org.vaadin.addons.filteringgrid.backend;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.vaadin.server.SerializableSupplier;
+
+/**
+ * Bounded, time-limited cache of backend item counts keyed by filter state.
+ * <p>
+ * When set to a {@link org.vaadin.addons.filteringgrid.FilterGrid
+ * FilterGrid}, counts for a filter state that has been counted within the
+ * time to live are answered from the cache instead of calling the count
+ * callback. The least recently used entries are evicted when the cache is
+ * full. The grid clears the cache whenever its data provider is refreshed.
+ * <p>
+ * The ages of the counts are measured with {@link System#nanoTime()}, which
+ * is only comparable within one JVM, so a deserialized cache starts empty.
+ */
+public class CountCache implements Serializable {
+
+    /**
+     * The default maximum number of cached counts.
+     */
+    public static final int DEFAULT_MAX_SIZE = 100;
+
+    /**
+     * The default time a count is kept in the cache.
+     */
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(1);
+
+    private final int maxSize;
+
+    private final long timeToLiveNanos;
+
+    private final transient Map<Object, CachedCount> entries;
+
+    /**
+     * Creates a new count cache with the default size and time to live.
+     */
+    public CountCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * Creates a new count cache.
+     *
+     * @param maxSize
+     *         the maximum number of cached counts, greater than zero
+     * @param timeToLive
+     *         the time a count is kept in the cache, not {@code null}
+     */
+    public CountCache(int maxSize, Duration timeToLive) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Maximum size must be greater than zero");
+        }
+        Objects.requireNonNull(timeToLive, "Time to live cannot be null");
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        entries = new LinkedHashMap<Object, CachedCount>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Object, CachedCount> eldest) {
+                return size() > CountCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Gets the count for the given filter state, counting the items with the
+     * given counter if there is no valid cached count.
+     *
+     * @param key
+     *         value snapshot of the filter state
+     * @param counter
+     *         the counter to use on a cache miss
+     * @return the item count
+     */
+    public int getCount(Object key, SerializableSupplier<Integer> counter) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            CachedCount entry = entries.get(key);
+            if (entry != null && now - entry.created < timeToLiveNanos) {
+                return entry.count;
+            }
+        }
+        int count = counter.get();
+        synchronized (entries) {
+            entries.put(key, new CachedCount(count, now));
+        }
+        return count;
+    }
+
+    /**
+     * Removes every cached count.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Gets the maximum number of cached counts.
+     *
+     * @return the maximum size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the time a count is kept in the cache.
+     *
+     * @return the time to live
+     */
+    public Duration getTimeToLive() {
+        return Duration.ofNanos(timeToLiveNanos);
+    }
+
+    private Object readResolve() {
+        return new CountCache(maxSize, getTimeToLive());
+    }
+
+    private static final class CachedCount {
+
+        private final int count;
+
+        private final long created;
+
+        private CachedCount(int count, long created) {
+            this.count = count;
+            this.created = created;
+        }
+    }
+}
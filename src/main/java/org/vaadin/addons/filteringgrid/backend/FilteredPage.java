@@ -0,0 +1,76 @@
+package org.vaadin.addons.filteringgrid.backend;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A page of filtered backend items together with the total number of items
+ * that pass the filters, for backends that can count and fetch with a
+ * single query.
+ *
+ * @param <T>
+ *         the item type
+ */
+public final class FilteredPage<T> implements Serializable {
+
+    private final List<T> items;
+
+    private final int totalCount;
+
+    private FilteredPage(List<T> items, int totalCount) {
+        this.items = items;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Creates a page from a list of items.
+     *
+     * @param items
+     *         the items of the page, not {@code null}
+     * @param totalCount
+     *         the number of items that pass the filters in total
+     * @param <T>
+     *         the item type
+     * @return a new page
+     */
+    public static <T> FilteredPage<T> of(List<T> items, int totalCount) {
+        return new FilteredPage<>(Collections.unmodifiableList(items),
+                totalCount);
+    }
+
+    /**
+     * Creates a page from a stream of items.
+     *
+     * @param items
+     *         the items of the page, not {@code null}
+     * @param totalCount
+     *         the number of items that pass the filters in total
+     * @param <T>
+     *         the item type
+     * @return a new page
+     */
+    public static <T> FilteredPage<T> of(Stream<T> items, int totalCount) {
+        return of(items.collect(Collectors.toList()), totalCount);
+    }
+
+    /**
+     * Gets the items of this page.
+     *
+     * @return an unmodifiable list of items
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the number of items that pass the filters in total.
+     *
+     * @return the total item count
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+}
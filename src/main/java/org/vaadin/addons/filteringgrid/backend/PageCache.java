@@ -0,0 +1,340 @@
+package org.vaadin.addons.filteringgrid.backend;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.vaadin.addons.filteringgrid.filters.FilterCollection;
+
+import com.vaadin.data.provider.QuerySortOrder;
+
+/**
+ * Least recently used cache of backend items in fixed size blocks.
+ * <p>
+ * When set to a {@link org.vaadin.addons.filteringgrid.FilterGrid
+ * FilterGrid}, the requested range of items is split into blocks that are
+ * aligned to the block size. Each block is cached by the filter values, the
+ * sort order and its index, and only the missing blocks are fetched from the
+ * backend, adjacent missing blocks with a single call. A fetch starts at the
+ * beginning of a block but never ends past the requested range, so it stays
+ * within the size of the data set; a block that the requested range ends in
+ * is only cached once it has been fetched whole. The grid clears the
+ * cache whenever the filter values change or its data provider is
+ * refreshed.
+ * <p>
+ * The number of cached items is bounded both per cache and by {@link
+ * #setGlobalMaxItems(int) a global limit} that is shared by all caches.
+ *
+ * @param <T>
+ *         the item type
+ */
+public class PageCache<T> implements Serializable {
+
+    /**
+     * The default number of items in a block.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    /**
+     * The default maximum number of items in one cache.
+     */
+    public static final int DEFAULT_MAX_ITEMS = 10_000;
+
+    /**
+     * The default maximum number of items in all caches together.
+     */
+    public static final int DEFAULT_GLOBAL_MAX_ITEMS = 1_000_000;
+
+    private static final Map<PageCache<?>, Boolean> CACHES = Collections
+            .synchronizedMap(new WeakHashMap<>());
+
+    private static volatile int globalMaxItems = DEFAULT_GLOBAL_MAX_ITEMS;
+
+    /**
+     * Fetches a range of items from the backend.
+     *
+     * @param <T>
+     *         the item type
+     */
+    @FunctionalInterface
+    public interface RangeFetcher<T> extends Serializable {
+
+        /**
+         * Fetches a range of items.
+         *
+         * @param offset
+         *         the index of the first item
+         * @param limit
+         *         the maximum number of items
+         * @return a stream of at most {@code limit} items
+         */
+        public Stream<T> fetch(int offset, int limit);
+    }
+
+    private final int blockSize;
+
+    private final int maxItems;
+
+    private final Map<BlockKey, List<T>> blocks = new LinkedHashMap<>(16,
+            0.75f, true);
+
+    private volatile int itemCount;
+
+    /**
+     * Creates a new page cache with the default block size and maximum
+     * number of items.
+     */
+    public PageCache() {
+        this(DEFAULT_BLOCK_SIZE, DEFAULT_MAX_ITEMS);
+    }
+
+    /**
+     * Creates a new page cache.
+     *
+     * @param blockSize
+     *         the number of items in a block, greater than zero
+     * @param maxItems
+     *         the maximum number of items in this cache, at least the block
+     *         size
+     */
+    public PageCache(int blockSize, int maxItems) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Block size must be greater than zero");
+        }
+        if (maxItems < blockSize) {
+            throw new IllegalArgumentException(
+                    "Maximum item count must be at least the block size");
+        }
+        this.blockSize = blockSize;
+        this.maxItems = maxItems;
+        CACHES.put(this, Boolean.TRUE);
+    }
+
+    /**
+     * Sets the maximum number of items in all page caches together. When the
+     * limit is reached, a cache evicts its own least recently used blocks
+     * before caching a new one, or leaves the new block uncached.
+     *
+     * @param maxItems
+     *         the maximum number of cached items, not negative
+     */
+    public static void setGlobalMaxItems(int maxItems) {
+        if (maxItems < 0) {
+            throw new IllegalArgumentException(
+                    "Maximum item count must not be negative");
+        }
+        globalMaxItems = maxItems;
+    }
+
+    /**
+     * Gets the maximum number of items in all page caches together.
+     *
+     * @return the global maximum item count
+     */
+    public static int getGlobalMaxItems() {
+        return globalMaxItems;
+    }
+
+    /**
+     * Gets a range of items, fetching the blocks that are not in the cache
+     * with the given fetcher.
+     *
+     * @param filters
+     *         the filter values of the query
+     * @param sortOrders
+     *         the sort orders of the query
+     * @param offset
+     *         the index of the first item
+     * @param limit
+     *         the maximum number of items
+     * @param fetcher
+     *         fetches items from the backend, with the same filters and sort
+     *         orders
+     * @return a stream of at most {@code limit} items
+     */
+    public Stream<T> fetch(FilterCollection filters,
+            List<QuerySortOrder> sortOrders, int offset, int limit,
+            RangeFetcher<T> fetcher) {
+        if (limit <= 0) {
+            return Stream.empty();
+        }
+        List<Object> sort = toKey(sortOrders);
+        int firstBlock = offset / blockSize;
+        int lastBlock = (int) (((long) offset + limit - 1) / blockSize);
+
+        List<T> items = new ArrayList<>();
+        int block = firstBlock;
+        while (block <= lastBlock) {
+            List<T> cached = get(new BlockKey(filters, sort, block));
+            if (cached != null) {
+                items.addAll(cached);
+                block++;
+                if (cached.size() < blockSize) {
+                    break;
+                }
+                continue;
+            }
+            int missingEnd = block + 1;
+            while (missingEnd <= lastBlock
+                    && !contains(new BlockKey(filters, sort, missingEnd))) {
+                missingEnd++;
+            }
+            int fetchOffset = block * blockSize;
+            int fetchLimit = (int) Math.min(
+                    (long) (missingEnd - block) * blockSize,
+                    (long) offset + limit - fetchOffset);
+            List<T> fetched = fetcher.fetch(fetchOffset, fetchLimit)
+                    .collect(Collectors.toList());
+            /* Fewer items than asked for means the data set ended */
+            boolean ended = fetched.size() < fetchLimit;
+            for (int i = block; i < missingEnd; i++) {
+                int from = Math.min(fetched.size(), (i - block) * blockSize);
+                int to = Math.min(fetched.size(), from + blockSize);
+                if (to - from < blockSize) {
+                    if (ended) {
+                        put(new BlockKey(filters, sort, i),
+                                new ArrayList<>(fetched.subList(from, to)));
+                    }
+                    break;
+                }
+                put(new BlockKey(filters, sort, i),
+                        new ArrayList<>(fetched.subList(from, to)));
+            }
+            items.addAll(fetched);
+            if (ended) {
+                break;
+            }
+            block = missingEnd;
+        }
+
+        int from = Math.min(items.size(), offset - firstBlock * blockSize);
+        int to = Math.min(items.size(), from + limit);
+        return items.subList(from, to).stream();
+    }
+
+    /**
+     * Removes every cached block.
+     */
+    public synchronized void clear() {
+        blocks.clear();
+        itemCount = 0;
+    }
+
+    /**
+     * Gets the number of items in a block.
+     *
+     * @return the block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Gets the maximum number of items in this cache.
+     *
+     * @return the maximum item count
+     */
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * Gets the number of items currently in this cache.
+     *
+     * @return the cached item count
+     */
+    public synchronized int getItemCount() {
+        return itemCount;
+    }
+
+    private synchronized List<T> get(BlockKey key) {
+        return blocks.get(key);
+    }
+
+    private synchronized boolean contains(BlockKey key) {
+        return blocks.containsKey(key);
+    }
+
+    private synchronized void put(BlockKey key, List<T> items) {
+        List<T> previous = blocks.remove(key);
+        if (previous != null) {
+            itemCount -= previous.size();
+        }
+        int globalCount = getGlobalItemCount();
+        Iterator<List<T>> eldest = blocks.values().iterator();
+        while (eldest.hasNext() && (itemCount + items.size() > maxItems
+                || globalCount + items.size() > globalMaxItems)) {
+            int evicted = eldest.next().size();
+            eldest.remove();
+            itemCount -= evicted;
+            globalCount -= evicted;
+        }
+        if (itemCount + items.size() <= maxItems
+                && globalCount + items.size() <= globalMaxItems) {
+            blocks.put(key, items);
+            itemCount += items.size();
+        }
+    }
+
+    private static int getGlobalItemCount() {
+        List<PageCache<?>> caches;
+        synchronized (CACHES) {
+            caches = new ArrayList<>(CACHES.keySet());
+        }
+        /* Counts are read without locking the other caches */
+        return caches.stream().mapToInt(cache -> cache.itemCount).sum();
+    }
+
+    private static List<Object> toKey(List<QuerySortOrder> sortOrders) {
+        List<Object> key = new ArrayList<>(sortOrders.size() * 2);
+        sortOrders.forEach(order -> key.addAll(
+                Arrays.asList(order.getSorted(), order.getDirection())));
+        return key;
+    }
+
+    private Object readResolve() {
+        CACHES.put(this, Boolean.TRUE);
+        return this;
+    }
+
+    private static final class BlockKey implements Serializable {
+
+        private final FilterCollection filters;
+
+        private final List<Object> sortOrders;
+
+        private final int index;
+
+        private BlockKey(FilterCollection filters, List<Object> sortOrders,
+                int index) {
+            this.filters = filters;
+            this.sortOrders = sortOrders;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof BlockKey)) {
+                return false;
+            }
+            BlockKey other = (BlockKey) obj;
+            return index == other.index && filters.equals(other.filters)
+                    && sortOrders.equals(other.sortOrders);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(filters, sortOrders, index);
+        }
+    }
+}
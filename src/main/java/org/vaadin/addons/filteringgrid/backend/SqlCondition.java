@@ -0,0 +1,69 @@
+package org.vaadin.addons.filteringgrid.backend;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * A parameterized SQL condition translated from filter values by {@link
+ * SqlFilterTranslator}.
+ */
+public final class SqlCondition implements Serializable {
+
+    private final String sql;
+
+    private final List<Object> parameters;
+
+    SqlCondition(String sql, List<Object> parameters) {
+        this.sql = sql;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Gets the SQL of the condition, for example to append after {@code
+     * WHERE}. The SQL is {@code 1=1} if no filter has a value. It is the
+     * same string instance for every translation with the same filters
+     * active, so it can be used as a statement cache key.
+     *
+     * @return the condition with {@code ?} parameter markers
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Gets the parameter values in the order of the parameter markers.
+     *
+     * @return an unmodifiable list of parameter values
+     */
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Sets the parameter values to a prepared statement.
+     *
+     * @param statement
+     *         the statement that contains the condition
+     * @param firstIndex
+     *         the index of the first parameter marker of the condition in
+     *         the statement, starting from {@code 1}
+     * @return the index of the next parameter marker after the condition
+     * @throws SQLException
+     *         if setting a parameter fails
+     */
+    public int setParameters(PreparedStatement statement, int firstIndex)
+            throws SQLException {
+        int index = firstIndex;
+        for (Object parameter : parameters) {
+            statement.setObject(index++, parameter);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return sql + " " + parameters;
+    }
+}
@@ -0,0 +1,285 @@
+package org.vaadin.addons.filteringgrid.backend;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.vaadin.addons.filteringgrid.components.DateRangeField.DateRange;
+import org.vaadin.addons.filteringgrid.components.NumberInterval;
+import org.vaadin.addons.filteringgrid.filters.FilterCollection;
+
+/**
+ * Translates the values of a {@link FilterCollection} into a parameterized
+ * SQL condition.
+ * <p>
+ * Each translated filter is mapped to a database column. The condition for
+ * a filter depends on the type of its value, and matches the in-memory
+ * comparison of the filters that {@link
+ * org.vaadin.addons.filteringgrid.FilterFieldGenerator FilterFieldGenerator}
+ * creates:
+ * <ul>
+ * <li>{@link NumberInterval}: {@code =}, {@code <} and {@code >} comparisons
+ * to the interval bounds</li>
+ * <li>{@link DateRange}: inclusive comparisons to the start date and to
+ * the start of the day after the end date</li>
+ * <li>enums and booleans: equality, enums by {@link Enum#name()}</li>
+ * <li>strings: a {@code LIKE} comparison by the {@link TextMatch} of the
+ * column, to which rows without a value also pass</li>
+ * </ul>
+ * Filters without a value, and filter keys that are not mapped, add no
+ * condition. The SQL only depends on which filters and interval bounds have
+ * a value, so the same SQL string is returned for every combination of
+ * values with the same shape, and prepared statements can be cached by it.
+ * <p>
+ * The column names are inserted into the SQL as they are and must not come
+ * from user input.
+ */
+public class SqlFilterTranslator implements Serializable {
+
+    /**
+     * How a text filter value is compared to the column.
+     */
+    public enum TextMatch {
+        /**
+         * The column contains the filter value.
+         */
+        CONTAINS,
+        /**
+         * The column contains the filter value, ignoring case.
+         */
+        CONTAINS_IGNORE_CASE,
+        /**
+         * The column starts with the filter value.
+         */
+        STARTS_WITH,
+        /**
+         * The column starts with the filter value, ignoring case.
+         */
+        STARTS_WITH_IGNORE_CASE
+    }
+
+    private static final String NO_CONDITION = "1=1";
+
+    /*
+     * A backslash would be read as the start of an escape sequence inside
+     * the string literal by MySQL and MariaDB
+     */
+    private static final char LIKE_ESCAPE = '!';
+
+    private final Map<String, Mapping> mappings = new LinkedHashMap<>();
+
+    private final Map<String, String> sqlByShape = new ConcurrentHashMap<>();
+
+    /**
+     * Maps a filter to a column. Text values are compared with {@link
+     * TextMatch#CONTAINS_IGNORE_CASE}.
+     *
+     * @param filterKey
+     *         the key of the filter
+     * @param column
+     *         the column name or expression
+     * @return this translator
+     */
+    public SqlFilterTranslator map(String filterKey, String column) {
+        return map(filterKey, column, TextMatch.CONTAINS_IGNORE_CASE);
+    }
+
+    /**
+     * Maps a filter to a column.
+     *
+     * @param filterKey
+     *         the key of the filter
+     * @param column
+     *         the column name or expression
+     * @param textMatch
+     *         how text values are compared to the column
+     * @return this translator
+     */
+    public SqlFilterTranslator map(String filterKey, String column,
+            TextMatch textMatch) {
+        mappings.put(filterKey, new Mapping(column, textMatch));
+        sqlByShape.clear();
+        return this;
+    }
+
+    /**
+     * Translates the values of the given filters into a SQL condition.
+     *
+     * @param filters
+     *         the filter values
+     * @return the condition with its parameter values
+     * @throws IllegalArgumentException
+     *         if a mapped filter has a value of an unsupported type
+     */
+    public SqlCondition translate(FilterCollection filters) {
+        Map<String, Object> values = filters.getValues();
+        StringBuilder shape = new StringBuilder(mappings.size());
+        List<Object> parameters = new ArrayList<>();
+        mappings.forEach((key, mapping) -> shape
+                .append(addParameters(key, values.get(key), mapping,
+                        parameters)));
+
+        String shapeKey = shape.toString();
+        String sql = sqlByShape.get(shapeKey);
+        if (sql == null) {
+            sql = toSql(shapeKey);
+            sqlByShape.put(shapeKey, sql);
+        }
+        return new SqlCondition(sql,
+                Collections.unmodifiableList(parameters));
+    }
+
+    /*
+     * Adds the parameters of one filter value and returns the shape code of
+     * its condition.
+     */
+    private static char addParameters(String key, Object value,
+            Mapping mapping, List<Object> parameters) {
+        if (value == null) {
+            return '-';
+        }
+        if (value instanceof NumberInterval) {
+            NumberInterval interval = (NumberInterval) value;
+            String eq = interval.getEqualsValue();
+            String lt = interval.getLessThanValue();
+            String gt = interval.getGreaterThanValue();
+            if (StringUtils.isNotBlank(eq)) {
+                parameters.add(new BigDecimal(eq.trim()));
+                return '=';
+            }
+            if (StringUtils.isNotBlank(lt) && StringUtils.isNotBlank(gt)) {
+                parameters.add(new BigDecimal(lt.trim()));
+                parameters.add(new BigDecimal(gt.trim()));
+                return 'b';
+            }
+            if (StringUtils.isNotBlank(lt)) {
+                parameters.add(new BigDecimal(lt.trim()));
+                return '<';
+            }
+            if (StringUtils.isNotBlank(gt)) {
+                parameters.add(new BigDecimal(gt.trim()));
+                return '>';
+            }
+            return '-';
+        }
+        if (value instanceof DateRange) {
+            DateRange range = (DateRange) value;
+            LocalDate from = range.getDateFrom();
+            LocalDate to = range.getDateTo();
+            if (from != null) {
+                parameters.add(from);
+            }
+            if (to != null) {
+                /*
+                 * Compared to the start of the next day, inclusive like the
+                 * in-memory comparison
+                 */
+                parameters.add(to.plusDays(1));
+            }
+            return from != null ? to != null ? 'r' : 'f'
+                    : to != null ? 't' : '-';
+        }
+        if (value instanceof Enum) {
+            parameters.add(((Enum<?>) value).name());
+            return '=';
+        }
+        if (value instanceof Boolean) {
+            parameters.add(value);
+            return '=';
+        }
+        if (value instanceof String) {
+            String text = (String) value;
+            if (text.isEmpty()) {
+                return '-';
+            }
+            TextMatch match = mapping.textMatch;
+            if (ignoreCase(match)) {
+                text = text.toLowerCase(Locale.ROOT);
+            }
+            boolean contains = match == TextMatch.CONTAINS
+                    || match == TextMatch.CONTAINS_IGNORE_CASE;
+            parameters.add((contains ? "%" : "") + escapeLike(text) + "%");
+            return 'l';
+        }
+        throw new IllegalArgumentException("Unsupported value type "
+                + value.getClass().getName() + " of filter " + key);
+    }
+
+    private String toSql(String shape) {
+        List<String> conditions = new ArrayList<>();
+        int i = 0;
+        for (Mapping mapping : mappings.values()) {
+            String column = mapping.column;
+            switch (shape.charAt(i++)) {
+            case '=':
+                conditions.add(column + " = ?");
+                break;
+            case '<':
+                conditions.add(column + " < ?");
+                break;
+            case '>':
+                conditions.add(column + " > ?");
+                break;
+            case 'b':
+                conditions.add(column + " < ? AND " + column + " > ?");
+                break;
+            case 'f':
+                conditions.add(column + " >= ?");
+                break;
+            case 't':
+                conditions.add(column + " <= ?");
+                break;
+            case 'r':
+                conditions.add(column + " >= ? AND " + column + " <= ?");
+                break;
+            case 'l':
+                conditions.add("(" + column + " IS NULL OR "
+                        + (ignoreCase(mapping.textMatch)
+                                ? "LOWER(" + column + ")" : column)
+                        + " LIKE ? ESCAPE '" + LIKE_ESCAPE + "')");
+                break;
+            default:
+                break;
+            }
+        }
+        return conditions.isEmpty() ? NO_CONDITION
+                : String.join(" AND ", conditions);
+    }
+
+    private static boolean ignoreCase(TextMatch match) {
+        return match == TextMatch.CONTAINS_IGNORE_CASE
+                || match == TextMatch.STARTS_WITH_IGNORE_CASE;
+    }
+
+    private static String escapeLike(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 4);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private static final class Mapping implements Serializable {
+
+        private final String column;
+
+        private final TextMatch textMatch;
+
+        private Mapping(String column, TextMatch textMatch) {
+            this.column = column;
+            this.textMatch = textMatch;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.vaadin.addons.filteringgrid.columnar;
+
+import java.util.BitSet;
+
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.BooleanColumn;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.EnumColumn;
+
+/**
+ * Bitmap index of a low-cardinality column. Every enum constant, or both
+ * boolean values, is mapped to the set of rows that hold it, so that
+ * selecting a value is a single lookup and several selections combine with
+ * word-level {@link BitSet#and(BitSet) AND}.
+ */
+public final class BitmapIndex {
+
+    private final Class<?> valueType;
+
+    private final BitSet[] bitmaps;
+
+    private BitmapIndex(Class<?> valueType, BitSet[] bitmaps) {
+        this.valueType = valueType;
+        this.bitmaps = bitmaps;
+    }
+
+    /**
+     * Creates a bitmap index of the given column.
+     *
+     * @param column
+     *         the column to index
+     * @return a new bitmap index, or {@code null} if the column does not
+     * hold enums or booleans
+     */
+    public static BitmapIndex of(ColumnStore column) {
+        byte[] values;
+        int cardinality;
+        if (column instanceof EnumColumn) {
+            values = ((EnumColumn) column).getOrdinals();
+            cardinality = column.getValueType().getEnumConstants().length;
+        } else if (column instanceof BooleanColumn) {
+            values = ((BooleanColumn) column).getValues();
+            cardinality = 2;
+        } else {
+            return null;
+        }
+        BitSet[] bitmaps = new BitSet[cardinality];
+        for (int i = 0; i < cardinality; i++) {
+            bitmaps[i] = new BitSet(values.length);
+        }
+        for (int row = 0; row < values.length; row++) {
+            if (values[row] >= 0) {
+                bitmaps[values[row]].set(row);
+            }
+        }
+        return new BitmapIndex(column.getValueType(), bitmaps);
+    }
+
+    /**
+     * Gets the rows that hold the given value. The returned set is shared by
+     * the index and must not be modified.
+     *
+     * @param value
+     *         the enum constant or boolean to look up
+     * @return the rows with the value, or {@code null} if the value is not
+     * of the type of the indexed column
+     */
+    public BitSet getRows(Object value) {
+        if (value instanceof Boolean && valueType == Boolean.class) {
+            return bitmaps[(Boolean) value ? 1 : 0];
+        }
+        if (valueType.isInstance(value) && value instanceof Enum) {
+            return bitmaps[((Enum<?>) value).ordinal()];
+        }
+        return null;
+    }
+}
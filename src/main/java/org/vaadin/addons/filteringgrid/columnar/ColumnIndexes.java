@@ -0,0 +1,99 @@
+package org.vaadin.addons.filteringgrid.columnar;
+
+/**
+ * The indexes of one column of a {@link ColumnarDataProvider}. Each kind of
+ * index is built from the {@link ColumnStore} the first time a filter asks
+ * for it and kept until the data provider is refreshed.
+ */
+public final class ColumnIndexes {
+
+    private final ColumnStore column;
+
+    private boolean sortedIndexBuilt;
+
+    private SortedIndex sortedIndex;
+
+    private boolean trigramIndexBuilt;
+
+    private TrigramIndex trigramIndex;
+
+    private boolean bitmapIndexBuilt;
+
+    private BitmapIndex bitmapIndex;
+
+    private final PrefixIndex[] prefixIndexes = new PrefixIndex[2];
+
+    private final boolean[] prefixIndexesBuilt = new boolean[2];
+
+    ColumnIndexes(ColumnStore column) {
+        this.column = column;
+    }
+
+    /**
+     * Gets the indexed column.
+     *
+     * @return the column store
+     */
+    public ColumnStore getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the sorted index of the column, building it if needed.
+     *
+     * @return the sorted index, or {@code null} if the column does not hold
+     * numbers or dates
+     */
+    public SortedIndex getSortedIndex() {
+        if (!sortedIndexBuilt) {
+            sortedIndex = SortedIndex.of(column);
+            sortedIndexBuilt = true;
+        }
+        return sortedIndex;
+    }
+
+    /**
+     * Gets the trigram index of the column, building it if needed.
+     *
+     * @return the trigram index, or {@code null} if the column holds
+     * numbers, dates, enums or booleans
+     */
+    public TrigramIndex getTrigramIndex() {
+        if (!trigramIndexBuilt) {
+            trigramIndex = TrigramIndex.of(column);
+            trigramIndexBuilt = true;
+        }
+        return trigramIndex;
+    }
+
+    /**
+     * Gets the prefix index of the column, building it if needed.
+     *
+     * @param ignoreCase
+     *         {@code true} for an index of the lower case texts
+     * @return the prefix index, or {@code null} if the column holds numbers,
+     * dates, enums or booleans
+     */
+    public PrefixIndex getPrefixIndex(boolean ignoreCase) {
+        int i = ignoreCase ? 1 : 0;
+        if (!prefixIndexesBuilt[i]) {
+            prefixIndexes[i] = PrefixIndex.of(column, ignoreCase);
+            prefixIndexesBuilt[i] = true;
+        }
+        return prefixIndexes[i];
+    }
+
+    /**
+     * Gets the bitmap index of the column, building it if needed.
+     *
+     * @return the bitmap index, or {@code null} if the column does not hold
+     * enums or booleans
+     */
+    public BitmapIndex getBitmapIndex() {
+        if (!bitmapIndexBuilt) {
+            bitmapIndex = BitmapIndex.of(column);
+            bitmapIndexBuilt = true;
+        }
+        return bitmapIndex;
+    }
+}
@@ -0,0 +1,447 @@
+package org.vaadin.addons.filteringgrid.columnar;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.BitSet;
+import java.util.Date;
+
+/**
+ * Values of one filterable column extracted from every row of a {@link
+ * ColumnarDataProvider} into an array. Numbers, dates, enums and booleans
+ * are stored in primitive arrays so that filters can scan them without
+ * calling getters or boxing values. Other values are kept in an object
+ * array.
+ * <p>
+ * The type of the store is decided by the values found in the column:
+ * <ul>
+ * <li>{@code Double} values in a {@code double[]}</li>
+ * <li>{@code Float} values in a {@code float[]}</li>
+ * <li>{@code Integer}, {@code Short} and {@code Byte} values in an {@code
+ * int[]}</li>
+ * <li>{@code Long} values in a {@code long[]}</li>
+ * <li>{@link Date} and {@link LocalDateTime} values as epoch milliseconds and
+ * {@link LocalDate} values as epoch days in a {@code long[]}</li>
+ * <li>enum values as ordinals in a {@code byte[]}</li>
+ * <li>{@code Boolean} values in a {@code byte[]}</li>
+ * </ul>
+ * A column that mixes value types falls back to an object array.
+ */
+public abstract class ColumnStore {
+
+    private final Class<?> valueType;
+
+    private final BitSet nulls;
+
+    private ColumnStore(Class<?> valueType, BitSet nulls) {
+        this.valueType = valueType;
+        this.nulls = nulls;
+    }
+
+    /**
+     * Creates a column store for the given column values.
+     *
+     * @param values
+     *         the values of the column, one for each row
+     * @return a new column store
+     */
+    public static ColumnStore of(Object[] values) {
+        Class<?> type = commonType(values);
+        BitSet nulls = new BitSet(values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                nulls.set(i);
+            }
+        }
+        if (type == null) {
+            return new ObjectColumn(Object.class, nulls, values);
+        }
+        if (type == Double.class) {
+            double[] array = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                array[i] = values[i] == null ? 0 : (Double) values[i];
+            }
+            return new DoubleColumn(type, nulls, array);
+        }
+        if (type == Float.class) {
+            float[] array = new float[values.length];
+            for (int i = 0; i < values.length; i++) {
+                array[i] = values[i] == null ? 0 : (Float) values[i];
+            }
+            return new FloatColumn(type, nulls, array);
+        }
+        if (type == Integer.class || type == Short.class
+                || type == Byte.class) {
+            int[] array = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                array[i] = values[i] == null ? 0
+                        : ((Number) values[i]).intValue();
+            }
+            return new IntColumn(type, nulls, array);
+        }
+        if (type == Long.class) {
+            long[] array = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                array[i] = values[i] == null ? 0 : (Long) values[i];
+            }
+            return new LongColumn(type, nulls, array);
+        }
+        if (Date.class.isAssignableFrom(type)
+                || type == LocalDateTime.class) {
+            ZoneId zone = ZoneId.systemDefault();
+            long[] array = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] instanceof Date) {
+                    array[i] = ((Date) values[i]).getTime();
+                } else if (values[i] != null) {
+                    array[i] = ((LocalDateTime) values[i]).atZone(zone)
+                            .toInstant().toEpochMilli();
+                }
+            }
+            return new TemporalColumn(type, nulls, array, false, zone);
+        }
+        if (type == LocalDate.class) {
+            long[] array = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                array[i] = values[i] == null ? 0
+                        : ((LocalDate) values[i]).toEpochDay();
+            }
+            return new TemporalColumn(type, nulls, array, true,
+                    ZoneId.systemDefault());
+        }
+        if (type.isEnum() && type.getEnumConstants().length <= Byte.MAX_VALUE) {
+            byte[] array = new byte[values.length];
+            for (int i = 0; i < values.length; i++) {
+                array[i] = values[i] == null ? -1
+                        : (byte) ((Enum<?>) values[i]).ordinal();
+            }
+            return new EnumColumn(type, nulls, array);
+        }
+        if (type == Boolean.class) {
+            byte[] array = new byte[values.length];
+            for (int i = 0; i < values.length; i++) {
+                array[i] = values[i] == null ? -1
+                        : (byte) ((Boolean) values[i] ? 1 : 0);
+            }
+            return new BooleanColumn(type, nulls, array);
+        }
+        return new ObjectColumn(type, nulls, values);
+    }
+
+    private static Class<?> commonType(Object[] values) {
+        Class<?> type = null;
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            Class<?> valueType = value instanceof Enum
+                    ? ((Enum<?>) value).getDeclaringClass() : value.getClass();
+            if (value instanceof Date) {
+                valueType = Date.class;
+            }
+            if (type == null) {
+                type = valueType;
+            } else if (type != valueType) {
+                return null;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Gets the type of the values in this column. Dates of different
+     * {@link Date} subclasses are reported as {@code Date}.
+     *
+     * @return the value type, {@code Object} for mixed or empty columns
+     */
+    public Class<?> getValueType() {
+        return valueType;
+    }
+
+    /**
+     * Gets the number of rows in this column.
+     *
+     * @return the row count
+     */
+    public abstract int size();
+
+    /**
+     * Checks whether the value of the given row is {@code null}.
+     *
+     * @param row
+     *         the row index
+     * @return {@code true} if the row has no value, otherwise {@code false}
+     */
+    public boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    /**
+     * Checks whether any row of this column has a {@code null} value.
+     *
+     * @return {@code true} if there are {@code null} values, otherwise
+     * {@code false}
+     */
+    public boolean hasNulls() {
+        return !nulls.isEmpty();
+    }
+
+    /**
+     * Gets the rows of this column that have a {@code null} value.
+     *
+     * @return a new bit set of the {@code null} rows
+     */
+    public BitSet getNullRows() {
+        return (BitSet) nulls.clone();
+    }
+
+    /**
+     * Column of {@code double} values.
+     */
+    public static final class DoubleColumn extends ColumnStore {
+
+        private final double[] values;
+
+        private DoubleColumn(Class<?> valueType, BitSet nulls,
+                double[] values) {
+            super(valueType, nulls);
+            this.values = values;
+        }
+
+        /**
+         * Gets the values of this column. The array must not be modified.
+         *
+         * @return the column values, {@code 0} for {@code null} rows
+         */
+        public double[] getValues() {
+            return values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    /**
+     * Column of {@code float} values.
+     */
+    public static final class FloatColumn extends ColumnStore {
+
+        private final float[] values;
+
+        private FloatColumn(Class<?> valueType, BitSet nulls, float[] values) {
+            super(valueType, nulls);
+            this.values = values;
+        }
+
+        /**
+         * Gets the values of this column. The array must not be modified.
+         *
+         * @return the column values, {@code 0} for {@code null} rows
+         */
+        public float[] getValues() {
+            return values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    /**
+     * Column of {@code int}, {@code short} and {@code byte} values.
+     */
+    public static final class IntColumn extends ColumnStore {
+
+        private final int[] values;
+
+        private IntColumn(Class<?> valueType, BitSet nulls, int[] values) {
+            super(valueType, nulls);
+            this.values = values;
+        }
+
+        /**
+         * Gets the values of this column. The array must not be modified.
+         *
+         * @return the column values, {@code 0} for {@code null} rows
+         */
+        public int[] getValues() {
+            return values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    /**
+     * Column of {@code long} values.
+     */
+    public static final class LongColumn extends ColumnStore {
+
+        private final long[] values;
+
+        private LongColumn(Class<?> valueType, BitSet nulls, long[] values) {
+            super(valueType, nulls);
+            this.values = values;
+        }
+
+        /**
+         * Gets the values of this column. The array must not be modified.
+         *
+         * @return the column values, {@code 0} for {@code null} rows
+         */
+        public long[] getValues() {
+            return values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    /**
+     * Column of dates stored either as epoch milliseconds or, for {@link
+     * LocalDate} values, as epoch days.
+     */
+    public static final class TemporalColumn extends ColumnStore {
+
+        private final long[] values;
+
+        private final boolean epochDays;
+
+        private final ZoneId zone;
+
+        private TemporalColumn(Class<?> valueType, BitSet nulls, long[] values,
+                boolean epochDays, ZoneId zone) {
+            super(valueType, nulls);
+            this.values = values;
+            this.epochDays = epochDays;
+            this.zone = zone;
+        }
+
+        /**
+         * Gets the values of this column. The array must not be modified.
+         *
+         * @return the column values, {@code 0} for {@code null} rows
+         */
+        public long[] getValues() {
+            return values;
+        }
+
+        /**
+         * Checks whether the values are epoch days instead of epoch
+         * milliseconds.
+         *
+         * @return {@code true} for a column of {@link LocalDate} values
+         */
+        public boolean isEpochDays() {
+            return epochDays;
+        }
+
+        /**
+         * Gets the time zone that was used for converting local date-times
+         * to epoch milliseconds.
+         *
+         * @return the time zone of the column
+         */
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    /**
+     * Column of enum values stored as ordinals.
+     */
+    public static final class EnumColumn extends ColumnStore {
+
+        private final byte[] ordinals;
+
+        private EnumColumn(Class<?> valueType, BitSet nulls, byte[] ordinals) {
+            super(valueType, nulls);
+            this.ordinals = ordinals;
+        }
+
+        /**
+         * Gets the ordinals of this column. The array must not be modified.
+         *
+         * @return the ordinals, {@code -1} for {@code null} rows
+         */
+        public byte[] getOrdinals() {
+            return ordinals;
+        }
+
+        @Override
+        public int size() {
+            return ordinals.length;
+        }
+    }
+
+    /**
+     * Column of boolean values.
+     */
+    public static final class BooleanColumn extends ColumnStore {
+
+        private final byte[] values;
+
+        private BooleanColumn(Class<?> valueType, BitSet nulls,
+                byte[] values) {
+            super(valueType, nulls);
+            this.values = values;
+        }
+
+        /**
+         * Gets the values of this column. The array must not be modified.
+         *
+         * @return {@code 1} for true, {@code 0} for false and {@code -1} for
+         * {@code null} rows
+         */
+        public byte[] getValues() {
+            return values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    /**
+     * Column of any other values.
+     */
+    public static final class ObjectColumn extends ColumnStore {
+
+        private final Object[] values;
+
+        private ObjectColumn(Class<?> valueType, BitSet nulls,
+                Object[] values) {
+            super(valueType, nulls);
+            this.values = values;
+        }
+
+        /**
+         * Gets the value of the given row.
+         *
+         * @param row
+         *         the row index
+         * @return the value of the row
+         */
+        public Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+}
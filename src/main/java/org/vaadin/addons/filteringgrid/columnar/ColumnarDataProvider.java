@@ -0,0 +1,364 @@
+package org.vaadin.addons.filteringgrid.columnar;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.ObjectColumn;
+import org.vaadin.addons.filteringgrid.filters.InMemoryFilterPlan;
+import org.vaadin.addons.filteringgrid.filters.ParallelFilter;
+
+import com.vaadin.data.ValueProvider;
+import com.vaadin.data.provider.ListDataProvider;
+import com.vaadin.server.SerializableBiPredicate;
+import com.vaadin.server.SerializablePredicate;
+
+/**
+ * In-memory data provider that stores the values of filtered columns in
+ * primitive arrays.
+ * <p>
+ * When used with {@link org.vaadin.addons.filteringgrid.FilterGrid#setFilteredDataProvider(com.vaadin.data.provider.InMemoryDataProvider)
+ * FilterGrid.setFilteredDataProvider()}, the value of each filtered column is
+ * extracted once from every item into a {@link ColumnStore}. Filters whose
+ * predicate is a {@link ColumnarPredicate}, like the ones created by {@link
+ * org.vaadin.addons.filteringgrid.FilterFieldGenerator FilterFieldGenerator},
+ * then scan the arrays instead of calling getters on the items. Other
+ * predicates get the extracted value, or the item's value for primitive
+ * columns.
+ * <p>
+ * Columns whose filter has been marked with {@link
+ * org.vaadin.addons.filteringgrid.FilterGrid.Column#setFilterIndexed(boolean)
+ * setFilterIndexed()} are additionally indexed: numbers and dates in a
+ * {@link SortedIndex} that answers interval filters with binary search, and
+ * text in a {@link TrigramIndex} that answers case-insensitive contains
+ * filters. Prefix filters on text columns always use a {@link PrefixIndex},
+ * and enum and boolean filters a {@link BitmapIndex}.
+ * <p>
+ * The extracted values are dropped when the data provider is refreshed. Used
+ * with a plain grid this data provider works like a {@link
+ * ListDataProvider}.
+ *
+ * @param <T>
+ *         the data item type
+ */
+public class ColumnarDataProvider<T> extends ListDataProvider<T> {
+
+    private transient Object[] rows;
+
+    private transient Map<ValueProvider<T, ?>, ColumnStore> columns;
+
+    private transient Map<ValueProvider<T, ?>, ColumnIndexes> indexes;
+
+    /**
+     * Creates a new columnar data provider backed by the given collection.
+     * Changes made to the collection are visible after the data provider has
+     * been refreshed.
+     *
+     * @param items
+     *         the initial data, not {@code null}
+     */
+    public ColumnarDataProvider(Collection<T> items) {
+        super(items);
+    }
+
+    /**
+     * Creates a new columnar data provider backed by the given collection.
+     *
+     * @param items
+     *         the initial data, not {@code null}
+     * @param <T>
+     *         the data item type
+     * @return a new columnar data provider
+     */
+    public static <T> ColumnarDataProvider<T> ofCollection(
+            Collection<T> items) {
+        return new ColumnarDataProvider<>(items);
+    }
+
+    /**
+     * Gets the number of rows in the extracted data.
+     *
+     * @return the row count
+     */
+    public int getRowCount() {
+        return getRows().length;
+    }
+
+    /**
+     * Gets the item of the given row.
+     *
+     * @param row
+     *         the row index
+     * @return the item of the row
+     */
+    @SuppressWarnings("unchecked")
+    public T getRow(int row) {
+        return (T) getRows()[row];
+    }
+
+    /**
+     * Gets the items of the given rows as an unmodifiable list.
+     *
+     * @param rows
+     *         the row indices
+     * @return a list view of the items
+     */
+    public List<T> getRows(int[] rows) {
+        Object[] items = getRows();
+        return new AbstractList<T>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public T get(int index) {
+                return (T) items[rows[index]];
+            }
+
+            @Override
+            public int size() {
+                return rows.length;
+            }
+        };
+    }
+
+    /**
+     * Gets the column store for the given value provider, extracting the
+     * values from the items if needed. Column stores are identified by the
+     * value provider instance.
+     *
+     * @param valueProvider
+     *         the value provider of the column
+     * @return the column store
+     */
+    @SuppressWarnings("unchecked")
+    public ColumnStore getColumn(ValueProvider<T, ?> valueProvider) {
+        if (columns == null) {
+            columns = new IdentityHashMap<>();
+        }
+        ColumnStore column = columns.get(valueProvider);
+        if (column == null) {
+            Object[] items = getRows();
+            Object[] values = new Object[items.length];
+            for (int i = 0; i < items.length; i++) {
+                values[i] = valueProvider.apply((T) items[i]);
+            }
+            column = ColumnStore.of(values);
+            columns.put(valueProvider, column);
+        }
+        return column;
+    }
+
+    /**
+     * Gets the indexes of the column for the given value provider. The
+     * indexes themselves are built when they are first asked for.
+     *
+     * @param valueProvider
+     *         the value provider of the column
+     * @return the indexes of the column
+     */
+    public ColumnIndexes getIndexes(ValueProvider<T, ?> valueProvider) {
+        if (indexes == null) {
+            indexes = new IdentityHashMap<>();
+        }
+        return indexes.computeIfAbsent(valueProvider,
+                key -> new ColumnIndexes(getColumn(key)));
+    }
+
+    /**
+     * Evaluates the given filter plan, together with the filter of this data
+     * provider, against the extracted column values. Filters that the plan
+     * marks as {@link InMemoryFilterPlan#isIndexed(int) indexed}, and filters
+     * whose predicate is {@link ColumnarPredicate#isAlwaysIndexed() always
+     * indexed}, are looked up from the {@link #getIndexes(ValueProvider)
+     * indexes} of their column first. Only the rows found there are scanned
+     * for the rest of the filters. The scanned filters are counted in the
+     * plan's {@link InMemoryFilterPlan#enableStatistics() statistics} when
+     * they are enabled.
+     *
+     * @param plan
+     *         the filter plan to evaluate
+     * @param candidates
+     *         ascending row indices to evaluate, or {@code null} to evaluate
+     *         every row
+     * @return ascending indices of the rows that pass the filters
+     */
+    public int[] filterRows(InMemoryFilterPlan<T> plan, int[] candidates) {
+        return filterRows(plan, candidates, null);
+    }
+
+    /**
+     * Evaluates the given filter plan like {@link
+     * #filterRows(InMemoryFilterPlan, int[])}, scanning the rows in parallel
+     * with the given parallel filter.
+     *
+     * @param plan
+     *         the filter plan to evaluate
+     * @param candidates
+     *         ascending row indices to evaluate, or {@code null} to evaluate
+     *         every row
+     * @param parallelFilter
+     *         the parallel filter that scans the rows, or {@code null} to
+     *         scan them sequentially
+     * @return ascending indices of the rows that pass the filters
+     */
+    @SuppressWarnings("unchecked")
+    public int[] filterRows(InMemoryFilterPlan<T> plan, int[] candidates,
+            ParallelFilter parallelFilter) {
+        Object[] items = getRows();
+        BitSet selection = null;
+        List<IntPredicate> scans = new ArrayList<>(plan.size());
+        for (int i = 0; i < plan.size(); i++) {
+            BitSet selected = lookup(plan, i);
+            if (selected == null) {
+                IntPredicate scan = compile(plan, i);
+                if (plan.isStatisticsEnabled()) {
+                    int index = i;
+                    IntPredicate unmeasured = scan;
+                    scan = row -> plan.recordEvaluation(index,
+                            unmeasured.test(row));
+                }
+                scans.add(scan);
+            } else if (selection == null) {
+                selection = (BitSet) selected.clone();
+            } else {
+                selection.and(selected);
+            }
+        }
+        IntPredicate[] predicates = scans.toArray(new IntPredicate[0]);
+        SerializablePredicate<T> filter = getFilter();
+
+        if (selection != null) {
+            BitSet selected = selection;
+            candidates = candidates == null ? selected.stream().toArray()
+                    : Arrays.stream(candidates).filter(selected::get)
+                            .toArray();
+        }
+        int count = candidates == null ? items.length : candidates.length;
+        if (parallelFilter != null && count >= parallelFilter.getThreshold()) {
+            int[] rows = candidates;
+            int[] matches = parallelFilter.filter(count, i -> {
+                int row = rows == null ? i : rows[i];
+                for (IntPredicate predicate : predicates) {
+                    if (!predicate.test(row)) {
+                        return false;
+                    }
+                }
+                return filter == null || filter.test((T) items[row]);
+            });
+            if (rows != null) {
+                for (int i = 0; i < matches.length; i++) {
+                    matches[i] = rows[matches[i]];
+                }
+            }
+            return matches;
+        }
+
+        int[] matches = new int[count];
+        int matchCount = 0;
+        rows: for (int i = 0; i < count; i++) {
+            int row = candidates == null ? i : candidates[i];
+            for (IntPredicate predicate : predicates) {
+                if (!predicate.test(row)) {
+                    continue rows;
+                }
+            }
+            if (filter == null || filter.test((T) items[row])) {
+                matches[matchCount++] = row;
+            }
+        }
+        return matchCount == count ? matches
+                : Arrays.copyOf(matches, matchCount);
+    }
+
+    /**
+     * Counts the rows that pass the given filter plan from the indexes of
+     * the columns, without evaluating the rows. That is possible when the
+     * plan has a single filter that is {@link InMemoryFilterPlan#isIndexed(int)
+     * indexed} and whose predicate can {@link ColumnarPredicate#count(ColumnIndexes,
+     * Object) count} its rows, and this data provider has no filter of its
+     * own.
+     *
+     * @param plan
+     *         the filter plan to count
+     * @return the number of rows that pass the plan, or {@code -1} if they
+     * can't be counted from the indexes
+     */
+    @SuppressWarnings("unchecked")
+    public int countRows(InMemoryFilterPlan<T> plan) {
+        if (plan.size() != 1 || getFilter() != null) {
+            return -1;
+        }
+        SerializableBiPredicate<Object, Object> predicate = plan
+                .getFilterPredicate(0);
+        if (!(predicate instanceof ColumnarPredicate)) {
+            return -1;
+        }
+        ColumnarPredicate<Object> columnar = (ColumnarPredicate<Object>) predicate;
+        if (!plan.isIndexed(0) && !columnar.isAlwaysIndexed()) {
+            return -1;
+        }
+        return columnar.count(getIndexes(plan.getValueProvider(0)),
+                plan.getValue(0));
+    }
+
+    /**
+     * Drops the extracted rows and column values. They are extracted again
+     * when needed. {@link org.vaadin.addons.filteringgrid.FilterGrid
+     * FilterGrid} calls this whenever the data provider reports a data
+     * change.
+     */
+    public void invalidate() {
+        rows = null;
+        columns = null;
+        indexes = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private BitSet lookup(InMemoryFilterPlan<T> plan, int index) {
+        SerializableBiPredicate<Object, Object> predicate = plan
+                .getFilterPredicate(index);
+        if (!(predicate instanceof ColumnarPredicate)) {
+            return null;
+        }
+        ColumnarPredicate<Object> columnar = (ColumnarPredicate<Object>) predicate;
+        if (!plan.isIndexed(index) && !columnar.isAlwaysIndexed()) {
+            return null;
+        }
+        return columnar.lookup(getIndexes(plan.getValueProvider(index)),
+                plan.getValue(index));
+    }
+
+    @SuppressWarnings("unchecked")
+    private IntPredicate compile(InMemoryFilterPlan<T> plan, int index) {
+        ValueProvider<T, Object> valueProvider = plan.getValueProvider(index);
+        SerializableBiPredicate<Object, Object> predicate = plan
+                .getFilterPredicate(index);
+        ColumnStore column = getColumn(valueProvider);
+        if (predicate instanceof ColumnarPredicate) {
+            IntPredicate compiled = ((ColumnarPredicate<Object>) predicate)
+                    .compile(column, plan.getValue(index));
+            if (compiled != null) {
+                return compiled;
+            }
+        }
+        SerializablePredicate<Object> compiled = plan
+                .getCompiledPredicate(index);
+        if (column instanceof ObjectColumn) {
+            ObjectColumn objects = (ObjectColumn) column;
+            return row -> compiled.test(objects.get(row));
+        }
+        Object[] items = getRows();
+        return row -> compiled.test(valueProvider.apply((T) items[row]));
+    }
+
+    private Object[] getRows() {
+        if (rows == null) {
+            rows = getItems().toArray();
+        }
+        return rows;
+    }
+}
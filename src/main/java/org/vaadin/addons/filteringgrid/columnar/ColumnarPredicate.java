@@ -0,0 +1,82 @@
+package org.vaadin.addons.filteringgrid.columnar;
+
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+
+/**
+ * Filter predicate that can evaluate a filter value directly against the
+ * values of a {@link ColumnStore}, without going through the row beans.
+ * <p>
+ * The predicates of {@link org.vaadin.addons.filteringgrid.comparators.Comparator
+ * Comparator} and {@link org.vaadin.addons.filteringgrid.comparators.RangeComparator
+ * RangeComparator} implement this interface. Predicates that don't are
+ * evaluated against the bean of each row as usual.
+ *
+ * @param <F>
+ *         the filter value type
+ */
+public interface ColumnarPredicate<F> {
+
+    /**
+     * Compiles a row predicate that evaluates the given filter value against
+     * the values of the given column. The predicate is given row indices and
+     * must give the same result as the bean-level predicate would give for
+     * the corresponding values.
+     *
+     * @param column
+     *         the column to evaluate against
+     * @param filterValue
+     *         the non-{@code null} filter value
+     * @return a row predicate, or {@code null} if this predicate doesn't
+     * support the type of the column
+     */
+    public IntPredicate compile(ColumnStore column, F filterValue);
+
+    /**
+     * Looks up the rows that pass the given filter value from the indexes of
+     * the column. Used before {@link #compile(ColumnStore, Object)} for
+     * columns whose filter has been marked as indexed, or for every column
+     * if this predicate is {@link #isAlwaysIndexed() always indexed}.
+     *
+     * @param indexes
+     *         the indexes of the column
+     * @param filterValue
+     *         the non-{@code null} filter value
+     * @return the rows that pass the filter, or {@code null} if this
+     * predicate can't be answered from the indexes. The caller does not
+     * modify the returned set, so it may be shared by an index.
+     */
+    public default BitSet lookup(ColumnIndexes indexes, F filterValue) {
+        return null;
+    }
+
+    /**
+     * Counts the rows that pass the given filter value from the indexes of
+     * the column, without collecting the rows. Used for the item count when
+     * an indexed filter is the only active filter, so a sorted index can
+     * answer it with two binary searches.
+     *
+     * @param indexes
+     *         the indexes of the column
+     * @param filterValue
+     *         the non-{@code null} filter value
+     * @return the number of rows that pass the filter, or {@code -1} if
+     * this predicate can't count them from the indexes
+     */
+    public default int count(ColumnIndexes indexes, F filterValue) {
+        return -1;
+    }
+
+    /**
+     * Checks whether {@link #lookup(ColumnIndexes, Object)} should be used
+     * even if the filter has not been marked as indexed. That is the case
+     * when the index is cheap enough to build that every filter benefits
+     * from it.
+     *
+     * @return {@code true} to always look up the rows from the indexes,
+     * {@code false} to do it only for indexed filters
+     */
+    public default boolean isAlwaysIndexed() {
+        return false;
+    }
+}
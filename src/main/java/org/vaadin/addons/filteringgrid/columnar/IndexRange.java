@@ -0,0 +1,48 @@
+package org.vaadin.addons.filteringgrid.columnar;
+
+import java.util.BitSet;
+
+/**
+ * Contiguous range of a sorted column index, i.e. the rows whose values lie
+ * between two bounds or start with the same prefix.
+ */
+public final class IndexRange {
+
+    private final int[] rows;
+
+    private final int from;
+
+    private final int to;
+
+    private final int rowCount;
+
+    IndexRange(int[] rows, int from, int to, int rowCount) {
+        this.rows = rows;
+        this.from = from;
+        this.to = Math.max(from, to);
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Gets the number of rows in this range. The count is known without
+     * visiting the rows.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return to - from;
+    }
+
+    /**
+     * Gets the rows in this range as a set of row indices.
+     *
+     * @return a new bit set of the rows
+     */
+    public BitSet toBitSet() {
+        BitSet bits = new BitSet(rowCount);
+        for (int i = from; i < to; i++) {
+            bits.set(rows[i]);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,104 @@
+package org.vaadin.addons.filteringgrid.columnar;
+
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.ObjectColumn;
+
+/**
+ * Sorted index of the {@code toString()} values of a text column, optionally
+ * lower-cased. The rows whose text starts with a given prefix form a
+ * contiguous range of the index that is found with binary search.
+ */
+public final class PrefixIndex {
+
+    private final String[] keys;
+
+    private final int[] rows;
+
+    private final int rowCount;
+
+    private PrefixIndex(String[] keys, int[] rows, int rowCount) {
+        this.keys = keys;
+        this.rows = rows;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Creates a prefix index of the given column. Rows without a value are
+     * left out of the index.
+     *
+     * @param column
+     *         the column to index
+     * @param ignoreCase
+     *         {@code true} to index the lower case texts, {@code false} to
+     *         index the texts as they are
+     * @return a new prefix index, or {@code null} if the column holds
+     * numbers, dates, enums or booleans
+     */
+    public static PrefixIndex of(ColumnStore column, boolean ignoreCase) {
+        if (!(column instanceof ObjectColumn)) {
+            return null;
+        }
+        ObjectColumn objects = (ObjectColumn) column;
+        String[] texts = new String[column.size()];
+        int[] rows = new int[column.size()];
+        int count = 0;
+        for (int row = 0; row < texts.length; row++) {
+            Object value = objects.get(row);
+            if (value != null) {
+                String text = value.toString();
+                texts[row] = ignoreCase ? text.toLowerCase() : text;
+                rows[count++] = row;
+            }
+        }
+        int[] sorted = new int[count];
+        System.arraycopy(rows, 0, sorted, 0, count);
+        RowSorter.sort(sorted, (a, b) -> texts[a].compareTo(texts[b]));
+
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = texts[sorted[i]];
+        }
+        return new PrefixIndex(keys, sorted, texts.length);
+    }
+
+    /**
+     * Gets the number of indexed texts, i.e. the rows that have a value.
+     *
+     * @return the number of indexed texts
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the range of rows whose text starts with the given prefix. For an
+     * index that ignores case, the prefix must be in lower case.
+     *
+     * @param prefix
+     *         the prefix to look for
+     * @return the matching range of this index
+     */
+    public IndexRange startingWith(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int from = low;
+        /* Texts starting with the prefix follow the prefix itself */
+        high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return new IndexRange(rows, from, low, rowCount);
+    }
+}
@@ -0,0 +1,49 @@
+package org.vaadin.addons.filteringgrid.columnar;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Sorts row indices by the values of a column without boxing them.
+ */
+final class RowSorter {
+
+    private RowSorter() {
+    }
+
+    /**
+     * Stable merge sort of row indices. Rows that compare equal keep their
+     * order.
+     *
+     * @param rows
+     *         the row indices to sort in place
+     * @param comparator
+     *         compares two rows by their values
+     */
+    static void sort(int[] rows, IntBinaryOperator comparator) {
+        int[] buffer = new int[rows.length];
+        int[] source = rows;
+        int[] target = buffer;
+        for (int width = 1; width < rows.length; width *= 2) {
+            for (int low = 0; low < rows.length; low += 2 * width) {
+                int mid = Math.min(low + width, rows.length);
+                int high = Math.min(low + 2 * width, rows.length);
+                int left = low;
+                int right = mid;
+                for (int i = low; i < high; i++) {
+                    if (left < mid && (right >= high || comparator
+                            .applyAsInt(source[left], source[right]) <= 0)) {
+                        target[i] = source[left++];
+                    } else {
+                        target[i] = source[right++];
+                    }
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != rows) {
+            System.arraycopy(source, 0, rows, 0, rows.length);
+        }
+    }
+}
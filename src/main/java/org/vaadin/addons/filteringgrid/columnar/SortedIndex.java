@@ -0,0 +1,230 @@
+package org.vaadin.addons.filteringgrid.columnar;
+
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.DoubleColumn;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.FloatColumn;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.IntColumn;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.LongColumn;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.TemporalColumn;
+
+/**
+ * Sorted index of a numeric or date {@link ColumnStore}. The index holds the
+ * non-{@code null} values of the column in ascending order together with the
+ * rows they belong to, so that range and equality queries are answered with
+ * binary search instead of a scan over every row.
+ * <p>
+ * Floating point values are ordered like {@link Double#compare(double,
+ * double)} orders them. Rows with equal values are kept in ascending row
+ * order.
+ */
+public final class SortedIndex {
+
+    private final ColumnStore column;
+
+    private final boolean floatingPoint;
+
+    private final long[] keys;
+
+    private final int[] rows;
+
+    private SortedIndex(ColumnStore column, boolean floatingPoint,
+            long[] keys, int[] rows) {
+        this.column = column;
+        this.floatingPoint = floatingPoint;
+        this.keys = keys;
+        this.rows = rows;
+    }
+
+    /**
+     * Creates a sorted index of the given column.
+     *
+     * @param column
+     *         the column to index
+     * @return a new sorted index, or {@code null} if the column does not
+     * hold numbers or dates
+     */
+    public static SortedIndex of(ColumnStore column) {
+        int size = column.size();
+        long[] rowKeys = new long[size];
+        boolean floatingPoint = false;
+        if (column instanceof DoubleColumn) {
+            double[] values = ((DoubleColumn) column).getValues();
+            for (int i = 0; i < size; i++) {
+                rowKeys[i] = toKey(values[i]);
+            }
+            floatingPoint = true;
+        } else if (column instanceof FloatColumn) {
+            float[] values = ((FloatColumn) column).getValues();
+            for (int i = 0; i < size; i++) {
+                rowKeys[i] = toKey(values[i]);
+            }
+            floatingPoint = true;
+        } else if (column instanceof IntColumn) {
+            int[] values = ((IntColumn) column).getValues();
+            for (int i = 0; i < size; i++) {
+                rowKeys[i] = values[i];
+            }
+        } else if (column instanceof LongColumn) {
+            System.arraycopy(((LongColumn) column).getValues(), 0, rowKeys, 0,
+                    size);
+        } else if (column instanceof TemporalColumn) {
+            System.arraycopy(((TemporalColumn) column).getValues(), 0,
+                    rowKeys, 0, size);
+        } else {
+            return null;
+        }
+
+        int[] rows = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (!column.isNull(i)) {
+                rows[count++] = i;
+            }
+        }
+        if (count < size) {
+            int[] nonNull = new int[count];
+            System.arraycopy(rows, 0, nonNull, 0, count);
+            rows = nonNull;
+        }
+        RowSorter.sort(rows, (a, b) -> Long.compare(rowKeys[a], rowKeys[b]));
+
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = rowKeys[rows[i]];
+        }
+        return new SortedIndex(column, floatingPoint, keys, rows);
+    }
+
+    /**
+     * Gets the indexed column.
+     *
+     * @return the column of this index
+     */
+    public ColumnStore getColumn() {
+        return column;
+    }
+
+    /**
+     * Checks whether the indexed values are floating point numbers. Bounds
+     * for such an index have to be given as {@code double} values.
+     *
+     * @return {@code true} for an index of {@code double} or {@code float}
+     * values, otherwise {@code false}
+     */
+    public boolean isFloatingPoint() {
+        return floatingPoint;
+    }
+
+    /**
+     * Gets the number of rows in the indexed column, including rows without
+     * a value.
+     *
+     * @return the row count of the column
+     */
+    public int getRowCount() {
+        return column.size();
+    }
+
+    /**
+     * Gets the number of indexed values, i.e. the rows that have a value.
+     *
+     * @return the number of indexed values
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the range of rows whose value is between the given bounds.
+     *
+     * @param lower
+     *         the lower bound
+     * @param lowerInclusive
+     *         whether rows equal to the lower bound are included
+     * @param upper
+     *         the upper bound
+     * @param upperInclusive
+     *         whether rows equal to the upper bound are included
+     * @return the matching range of this index
+     */
+    public IndexRange between(long lower, boolean lowerInclusive, long upper,
+            boolean upperInclusive) {
+        int from = lowerInclusive ? lowerBound(lower) : upperBound(lower);
+        int to = upperInclusive ? upperBound(upper) : lowerBound(upper);
+        return new IndexRange(rows, from, to, column.size());
+    }
+
+    /**
+     * Gets the range of rows whose value is between the given floating point
+     * bounds.
+     *
+     * @param lower
+     *         the lower bound
+     * @param lowerInclusive
+     *         whether rows equal to the lower bound are included
+     * @param upper
+     *         the upper bound
+     * @param upperInclusive
+     *         whether rows equal to the upper bound are included
+     * @return the matching range of this index
+     */
+    public IndexRange between(double lower, boolean lowerInclusive, double upper,
+            boolean upperInclusive) {
+        return between(toKey(lower), lowerInclusive, toKey(upper),
+                upperInclusive);
+    }
+
+    /**
+     * Gets the range of every indexed row.
+     *
+     * @return the range of the whole index
+     */
+    public IndexRange all() {
+        return new IndexRange(rows, 0, keys.length, column.size());
+    }
+
+    /**
+     * Gets an empty range.
+     *
+     * @return a range without rows
+     */
+    public IndexRange none() {
+        return new IndexRange(rows, 0, 0, column.size());
+    }
+
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /*
+     * Maps a double to a long that sorts like Double.compare() does, so that
+     * both kinds of columns can share one sorted key array.
+     */
+    private static long toKey(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,156 @@
+package org.vaadin.addons.filteringgrid.columnar;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.ObjectColumn;
+
+/**
+ * Inverted trigram index of a text column. Every three character sequence of
+ * the lower case {@code toString()} value of each row is mapped to the rows
+ * that contain it.
+ * <p>
+ * A case-insensitive contains query intersects the row lists of the
+ * pattern's trigrams, starting from the shortest one, and checks only the
+ * remaining candidate rows with {@link String#contains(CharSequence)}.
+ * Patterns shorter than three characters can't be answered from the index.
+ */
+public final class TrigramIndex {
+
+    /**
+     * The length of the character sequences in the index.
+     */
+    public static final int GRAM_LENGTH = 3;
+
+    private final String[] texts;
+
+    private final Map<Long, int[]> postings;
+
+    private TrigramIndex(String[] texts, Map<Long, int[]> postings) {
+        this.texts = texts;
+        this.postings = postings;
+    }
+
+    /**
+     * Creates a trigram index of the given column.
+     *
+     * @param column
+     *         the column to index
+     * @return a new trigram index, or {@code null} if the column holds
+     * numbers, dates, enums or booleans
+     */
+    public static TrigramIndex of(ColumnStore column) {
+        if (!(column instanceof ObjectColumn)) {
+            return null;
+        }
+        ObjectColumn objects = (ObjectColumn) column;
+        String[] texts = new String[column.size()];
+        Map<Long, Postings> builders = new HashMap<>();
+        for (int row = 0; row < texts.length; row++) {
+            Object value = objects.get(row);
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString().toLowerCase();
+            texts[row] = text;
+            for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+                builders.computeIfAbsent(gram(text, i), key -> new Postings())
+                        .add(row);
+            }
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(builders.size() * 4 / 3 + 1);
+        builders.forEach((gram, rows) -> postings.put(gram, rows.toArray()));
+        return new TrigramIndex(texts, postings);
+    }
+
+    /**
+     * Finds the rows whose lower case text contains the given pattern.
+     *
+     * @param pattern
+     *         the lower case pattern to look for
+     * @return the matching rows, or {@code null} if the pattern is shorter
+     * than {@link #GRAM_LENGTH}
+     */
+    public BitSet containing(String pattern) {
+        if (pattern.length() < GRAM_LENGTH) {
+            return null;
+        }
+        int[][] lists = new int[pattern.length() - GRAM_LENGTH + 1][];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(gram(pattern, i));
+            if (lists[i] == null) {
+                return new BitSet();
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+
+        int[] candidates = lists[0].clone();
+        int count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            if (lists[i] != lists[i - 1]) {
+                count = intersect(candidates, count, lists[i]);
+            }
+        }
+
+        BitSet rows = new BitSet(texts.length);
+        for (int i = 0; i < count; i++) {
+            int row = candidates[i];
+            if (texts[row].contains(pattern)) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    private static long gram(String text, int index) {
+        return (long) text.charAt(index) << 32
+                | (long) text.charAt(index + 1) << 16
+                | text.charAt(index + 2);
+    }
+
+    /*
+     * Keeps the rows of the first count candidates that are also in the
+     * given ascending row list. Returns the new count.
+     */
+    private static int intersect(int[] candidates, int count, int[] rows) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < rows.length; i++) {
+            int row = candidates[i];
+            while (j < rows.length && rows[j] < row) {
+                j++;
+            }
+            if (j < rows.length && rows[j] == row) {
+                candidates[kept++] = row;
+            }
+        }
+        return kept;
+    }
+
+    /*
+     * Growing list of ascending row indices without duplicates.
+     */
+    private static final class Postings {
+
+        private int[] rows = new int[4];
+
+        private int size;
+
+        private void add(int row) {
+            if (size > 0 && rows[size - 1] == row) {
+                return;
+            }
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(rows, size);
+        }
+    }
+}
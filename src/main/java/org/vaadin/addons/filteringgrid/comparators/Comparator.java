@@ -1,5 +1,15 @@
 package org.vaadin.addons.filteringgrid.comparators;
 
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+
+import org.vaadin.addons.filteringgrid.columnar.BitmapIndex;
+import org.vaadin.addons.filteringgrid.columnar.ColumnIndexes;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.BooleanColumn;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.EnumColumn;
+import org.vaadin.addons.filteringgrid.columnar.ColumnarPredicate;
+
 import com.vaadin.server.SerializableBiPredicate;
 
 /**
@@ -16,8 +26,9 @@ public class Comparator {
      * @return a predicate that does the comparison
      */
     public static <T extends Comparable<T>> SerializableBiPredicate<T, T> smallerThan() {
-        return ignoreNull(
-                (value, filterValue) -> value.compareTo(filterValue) < 0);
+        return refinable(ignoreNull(
+                (value, filterValue) -> value.compareTo(filterValue) < 0),
+                (previous, next) -> next.compareTo(previous) <= 0);
     }
 
     /**
@@ -29,8 +40,9 @@ public class Comparator {
      * @return a predicate that does the comparison
      */
     public static <T extends Comparable<T>> SerializableBiPredicate<T, T> smallerThanOrEquals() {
-        return ignoreNull(
-                (value, filterValue) -> value.compareTo(filterValue) <= 0);
+        return refinable(ignoreNull(
+                (value, filterValue) -> value.compareTo(filterValue) <= 0),
+                (previous, next) -> next.compareTo(previous) <= 0);
     }
 
     /**
@@ -46,6 +58,19 @@ public class Comparator {
                 (value, filterValue) -> value.compareTo(filterValue) == 0);
     }
 
+    /**
+     * Decides whether a value is {@link Object#equals(Object) equal} to the
+     * filter value. Every value passes a {@code null} filter value, but a
+     * {@code null} value does not pass any other filter value.
+     *
+     * @param <T>
+     *         type of the objects
+     * @return a predicate that does the comparison
+     */
+    public static <T> SerializableBiPredicate<T, T> isEqualTo() {
+        return new EqualsPredicate<>();
+    }
+
     /**
      * Compares two objects and decides whether one is greater than or equal
      * to the other. Ignores {@code null} values.
@@ -55,8 +80,9 @@ public class Comparator {
      * @return a predicate that does the comparison
      */
     public static <T extends Comparable<T>> SerializableBiPredicate<T, T> greaterThanOrEquals() {
-        return ignoreNull(
-                (value, filterValue) -> value.compareTo(filterValue) >= 0);
+        return refinable(ignoreNull(
+                (value, filterValue) -> value.compareTo(filterValue) >= 0),
+                (previous, next) -> next.compareTo(previous) >= 0);
     }
 
     /**
@@ -68,8 +94,9 @@ public class Comparator {
      * @return a predicate that does the comparison
      */
     public static <T extends Comparable<T>> SerializableBiPredicate<T, T> greaterThan() {
-        return ignoreNull(
-                (value, filterValue) -> value.compareTo(filterValue) > 0);
+        return refinable(ignoreNull(
+                (value, filterValue) -> value.compareTo(filterValue) > 0),
+                (previous, next) -> next.compareTo(previous) >= 0);
     }
 
     static <T, U> SerializableBiPredicate<T, U> ignoreNull(
@@ -77,4 +104,57 @@ public class Comparator {
         return (value, filterValue) -> value == null || filterValue == null
                 || predicate.test(value, filterValue);
     }
+
+    static <T, U> RefinablePredicate<T, U> refinable(
+            SerializableBiPredicate<T, U> predicate,
+            SerializableBiPredicate<U, U> refinement) {
+        return new RefinablePredicate<T, U>() {
+            @Override
+            public boolean test(T value, U filterValue) {
+                return predicate.test(value, filterValue);
+            }
+
+            @Override
+            public boolean isRefinement(U previous, U next) {
+                return refinement.test(previous, next);
+            }
+        };
+    }
+
+    private static class EqualsPredicate<T> implements
+            SerializableBiPredicate<T, T>, ColumnarPredicate<Object> {
+
+        @Override
+        public boolean test(T value, T filterValue) {
+            return filterValue == null || filterValue.equals(value);
+        }
+
+        @Override
+        public IntPredicate compile(ColumnStore column, Object filterValue) {
+            if (column instanceof EnumColumn
+                    && column.getValueType().isInstance(filterValue)) {
+                byte[] ordinals = ((EnumColumn) column).getOrdinals();
+                byte ordinal = (byte) ((Enum<?>) filterValue).ordinal();
+                return row -> ordinals[row] == ordinal;
+            }
+            if (column instanceof BooleanColumn
+                    && filterValue instanceof Boolean) {
+                byte[] values = ((BooleanColumn) column).getValues();
+                byte value = (byte) ((Boolean) filterValue ? 1 : 0);
+                return row -> values[row] == value;
+            }
+            return null;
+        }
+
+        @Override
+        public BitSet lookup(ColumnIndexes indexes, Object filterValue) {
+            BitmapIndex index = indexes.getBitmapIndex();
+            return index == null ? null : index.getRows(filterValue);
+        }
+
+        @Override
+        public boolean isAlwaysIndexed() {
+            return true;
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package org.vaadin.addons.filteringgrid.comparators;
+
+import com.vaadin.server.SerializableBiPredicate;
+import com.vaadin.server.SerializablePredicate;
+
+/**
+ * Filter predicate that can prepare itself for one filter value, for example
+ * by parsing or converting the filter value only once instead of for every
+ * evaluated row.
+ * <p>
+ * The grid compiles the predicate whenever the filter value changes and
+ * evaluates the rows with the compiled predicate until the next change.
+ *
+ * @param <V>
+ *         the filterable value type
+ * @param <F>
+ *         the filter value type
+ */
+public interface CompilablePredicate<V, F> extends
+        SerializableBiPredicate<V, F> {
+
+    /**
+     * Compiles a predicate for the given filter value. The compiled
+     * predicate must give the same result as {@link #test(Object, Object)}
+     * with the same filter value.
+     *
+     * @param filterValue
+     *         the non-{@code null} filter value
+     * @return a predicate that evaluates values against the filter value
+     */
+    public SerializablePredicate<V> compile(F filterValue);
+
+    @Override
+    public default boolean test(V value, F filterValue) {
+        return compile(filterValue).test(value);
+    }
+}
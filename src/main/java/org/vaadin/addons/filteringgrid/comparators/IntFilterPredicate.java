@@ -0,0 +1,54 @@
+package org.vaadin.addons.filteringgrid.comparators;
+
+import java.util.function.IntPredicate;
+
+import com.vaadin.server.SerializableBiPredicate;
+
+/**
+ * Filter predicate for primitive {@code int} values. When the filtered
+ * column gives its values with a primitive value provider, for example a
+ * column added with {@link
+ * org.vaadin.addons.filteringgrid.FilterGrid#addIntColumn(org.vaadin.addons.filteringgrid.filters.IntValueProvider)
+ * addIntColumn()}, the grid evaluates the predicate without boxing the
+ * values.
+ * <p>
+ * Boxed values are compared by their primitive value, and a {@code null}
+ * value never passes.
+ *
+ * @param <F>
+ *         the filter value type
+ */
+@FunctionalInterface
+public interface IntFilterPredicate<F> extends SerializableBiPredicate<Integer, F> {
+
+    /**
+     * Decides whether a value passes the filter.
+     *
+     * @param value
+     *         the filterable value
+     * @param filterValue
+     *         the filter value
+     * @return {@code true} if the value passes the filter, otherwise {@code
+     * false}
+     */
+    public boolean test(int value, F filterValue);
+
+    /**
+     * Compiles a predicate for the given filter value. The compiled
+     * predicate must give the same result as {@link #test(int, Object)}
+     * with the same filter value. By default, the compiled predicate calls
+     * that method.
+     *
+     * @param filterValue
+     *         the non-{@code null} filter value
+     * @return a predicate that evaluates values against the filter value
+     */
+    public default IntPredicate compileInt(F filterValue) {
+        return value -> test(value, filterValue);
+    }
+
+    @Override
+    public default boolean test(Integer value, F filterValue) {
+        return value != null && test(value.intValue(), filterValue);
+    }
+}
@@ -0,0 +1,29 @@
+package org.vaadin.addons.filteringgrid.comparators;
+
+import com.vaadin.server.SerializableBiPredicate;
+
+/**
+ * Filter predicate that compares values in a normalized form, for example as
+ * lower case strings. A grid that caches filterable values stores them in
+ * the normalized form, so that the normalization is done once per item
+ * instead of on every evaluation.
+ *
+ * @param <V>
+ *         the filterable value type
+ * @param <F>
+ *         the filter value type
+ * @see org.vaadin.addons.filteringgrid.FilterGrid.Column#setFilterValueCached(boolean)
+ */
+public interface NormalizingPredicate<V, F> extends
+        SerializableBiPredicate<V, F> {
+
+    /**
+     * Normalizes a filterable value. Evaluating this predicate with the
+     * normalized value must give the same result as with the original value.
+     *
+     * @param value
+     *         the filterable value, may be {@code null}
+     * @return the normalized value
+     */
+    public Object normalize(V value);
+}
@@ -0,0 +1,681 @@
+package org.vaadin.addons.filteringgrid.comparators;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+
+import org.apache.commons.lang3.StringUtils;
+import org.vaadin.addons.filteringgrid.columnar.ColumnIndexes;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.DoubleColumn;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.FloatColumn;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.IntColumn;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.LongColumn;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore.TemporalColumn;
+import org.vaadin.addons.filteringgrid.columnar.ColumnarPredicate;
+import org.vaadin.addons.filteringgrid.columnar.IndexRange;
+import org.vaadin.addons.filteringgrid.columnar.SortedIndex;
+import org.vaadin.addons.filteringgrid.components.DateRangeField.DateRange;
+import org.vaadin.addons.filteringgrid.components.NumberInterval;
+
+import com.vaadin.server.SerializablePredicate;
+
+/**
+ * Helper class for comparing values against the intervals produced by
+ * {@link org.vaadin.addons.filteringgrid.components.NumberFilterPopup
+ * NumberFilterPopup} and {@link org.vaadin.addons.filteringgrid.components.DateRangeField
+ * DateRangeField}.
+ */
+public class RangeComparator {
+
+    /**
+     * Decides whether a number is within a {@link NumberInterval}. The
+     * interval bounds are parsed to the type of the compared number. An
+     * empty interval lets every value pass, a {@code null} value never
+     * passes a non-empty interval.
+     * <p>
+     * The predicate is {@link CompilablePredicate compilable}: the compiled
+     * predicate parses the bounds once for the number type of the column
+     * and compares primitive wrappers as {@code long} or {@code double}
+     * values.
+     *
+     * @param <T>
+     *         type of the compared number
+     * @return a predicate that does the comparison
+     */
+    public static <T> RefinablePredicate<T, NumberInterval> numberInterval() {
+        return new NumberIntervalPredicate<>();
+    }
+
+    /**
+     * Decides whether an {@code int} is within a {@link NumberInterval}
+     * without boxing it, when used with a primitive {@code int} column. The
+     * bounds are parsed as {@code int} values, and otherwise the predicate
+     * works like {@link #numberInterval()}.
+     *
+     * @return a predicate that does the comparison
+     */
+    public static IntFilterPredicate<NumberInterval> intInterval() {
+        return new IntIntervalPredicate();
+    }
+
+    /**
+     * Decides whether a {@code long} is within a {@link NumberInterval}
+     * without boxing it, when used with a primitive {@code long} or {@code
+     * int} column. The bounds are parsed as {@code long} values, and
+     * otherwise the predicate works like {@link #numberInterval()}.
+     *
+     * @return a predicate that does the comparison
+     */
+    public static LongFilterPredicate<NumberInterval> longInterval() {
+        return new LongIntervalPredicate();
+    }
+
+    /**
+     * Decides whether a {@code double} is within a {@link NumberInterval}
+     * without boxing it, when used with a primitive column. The bounds are
+     * parsed as {@code double} values, and otherwise the predicate works like
+     * {@link #numberInterval()}.
+     *
+     * @return a predicate that does the comparison
+     */
+    public static DoubleFilterPredicate<NumberInterval> doubleInterval() {
+        return new DoubleIntervalPredicate();
+    }
+
+    /**
+     * Decides whether a date is within a {@link DateRange}. The compared value
+     * can be a {@link Date}, a {@link LocalDate} or a {@link LocalDateTime}.
+     * Both ends of the range are inclusive and an empty range lets every value
+     * pass.
+     *
+     * @param <T>
+     *         type of the compared date
+     * @return a predicate that does the comparison
+     */
+    public static <T> RefinablePredicate<T, DateRange> dateRange() {
+        return new DateRangePredicate<>();
+    }
+
+    /**
+     * Parses a number interval bound into the given number type.
+     *
+     * @param typeClass
+     *         the number type
+     * @param value
+     *         the bound to parse
+     * @return the parsed number
+     * @throws UnsupportedOperationException
+     *         if the type is not a supported number type
+     */
+    public static Comparable<?> parseNumberValue(Class<?> typeClass,
+            String value) {
+        if (typeClass == BigDecimal.class)
+                return new BigDecimal(value);
+        if (typeClass == BigInteger.class)
+                return new BigInteger(value);
+        if (typeClass == byte.class || typeClass == Byte.class)
+                return Byte.valueOf(value);
+        if (typeClass == short.class || typeClass == Short.class)
+                return Short.valueOf(value);
+        if (typeClass == int.class || typeClass == Integer.class)
+                return Integer.valueOf(value);
+        if (typeClass == long.class || typeClass == Long.class)
+                return Long.valueOf(value);
+        if (typeClass == float.class || typeClass == Float.class)
+                return Float.valueOf(value);
+        if (typeClass == double.class || typeClass == Double.class)
+                return Double.valueOf(value);
+
+        throw new UnsupportedOperationException("Unsupported number type; " + typeClass.getName());
+    }
+
+    private static IntPredicate nonNull(ColumnStore column,
+            IntPredicate predicate) {
+        return column.hasNulls()
+                ? row -> !column.isNull(row) && predicate.test(row)
+                : predicate;
+    }
+
+    private static class NumberIntervalPredicate<T> implements
+            RefinablePredicate<T, NumberInterval>,
+            CompilablePredicate<T, NumberInterval>,
+            ColumnarPredicate<NumberInterval> {
+
+        @Override
+        public boolean test(T value, NumberInterval interval) {
+            return compile(interval).test(value);
+        }
+
+        @Override
+        public SerializablePredicate<T> compile(NumberInterval interval) {
+            if (interval == null) {
+                /* Number interval is empty -> no filter */
+                return value -> true;
+            }
+            return new CompiledNumberInterval<>(interval);
+        }
+
+        @Override
+        public boolean isRefinement(NumberInterval previous,
+                NumberInterval next) {
+            try {
+                if (StringUtils.isNotBlank(previous.getEqualsValue())) {
+                    return StringUtils.isNotBlank(next.getEqualsValue())
+                            && compare(next.getEqualsValue(),
+                                    previous.getEqualsValue()) == 0;
+                }
+                if (StringUtils.isNotBlank(next.getEqualsValue())) {
+                    return false;
+                }
+                boolean hasLt = StringUtils.isNotBlank(previous.getLessThanValue());
+                boolean hasGt = StringUtils.isNotBlank(previous.getGreaterThanValue());
+                if (!hasLt && !hasGt) {
+                    /* An interval without bounds lets no value pass */
+                    return false;
+                }
+                if (hasLt && (StringUtils.isBlank(next.getLessThanValue())
+                        || compare(next.getLessThanValue(),
+                                previous.getLessThanValue()) > 0)) {
+                    return false;
+                }
+                return !hasGt || StringUtils.isNotBlank(next.getGreaterThanValue())
+                        && compare(next.getGreaterThanValue(),
+                                previous.getGreaterThanValue()) >= 0;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private static int compare(String a, String b) {
+            return new BigDecimal(a.trim()).compareTo(new BigDecimal(b.trim()));
+        }
+
+        @Override
+        public IntPredicate compile(ColumnStore column,
+                NumberInterval interval) {
+            Class<?> type = column.getValueType();
+            if (column instanceof DoubleColumn) {
+                double[] values = ((DoubleColumn) column).getValues();
+                DoubleBounds bounds = new DoubleBounds(type, interval);
+                return nonNull(column, row -> bounds.test(values[row]));
+            }
+            if (column instanceof FloatColumn) {
+                float[] values = ((FloatColumn) column).getValues();
+                DoubleBounds bounds = new DoubleBounds(type, interval);
+                return nonNull(column, row -> bounds.test(values[row]));
+            }
+            if (column instanceof IntColumn) {
+                int[] values = ((IntColumn) column).getValues();
+                LongBounds bounds = new LongBounds(type, interval);
+                return nonNull(column, row -> bounds.test(values[row]));
+            }
+            if (column instanceof LongColumn) {
+                long[] values = ((LongColumn) column).getValues();
+                LongBounds bounds = new LongBounds(type, interval);
+                return nonNull(column, row -> bounds.test(values[row]));
+            }
+            return null;
+        }
+
+        @Override
+        public BitSet lookup(ColumnIndexes indexes, NumberInterval interval) {
+            IndexRange range = select(indexes, interval);
+            return range == null ? null : range.toBitSet();
+        }
+
+        @Override
+        public int count(ColumnIndexes indexes, NumberInterval interval) {
+            IndexRange range = select(indexes, interval);
+            return range == null ? -1 : range.size();
+        }
+
+        IndexRange select(ColumnIndexes indexes, NumberInterval interval) {
+            SortedIndex index = indexes.getSortedIndex();
+            if (index == null) {
+                return null;
+            }
+            Class<?> type = index.getColumn().getValueType();
+            if (index.isFloatingPoint()) {
+                return new DoubleBounds(type, interval).select(index);
+            }
+            if (Number.class.isAssignableFrom(type)) {
+                return new LongBounds(type, interval).select(index);
+            }
+            return null;
+        }
+    }
+
+    private static final class IntIntervalPredicate extends
+            NumberIntervalPredicate<Integer> implements
+            IntFilterPredicate<NumberInterval> {
+
+        @Override
+        public boolean test(int value, NumberInterval interval) {
+            return compileInt(interval).test(value);
+        }
+
+        @Override
+        public IntPredicate compileInt(NumberInterval interval) {
+            if (interval == null) {
+                return value -> true;
+            }
+            LongBounds bounds = new LongBounds(Integer.class, interval);
+            return value -> bounds.test((long) value);
+        }
+    }
+
+    private static final class LongIntervalPredicate extends
+            NumberIntervalPredicate<Long> implements
+            LongFilterPredicate<NumberInterval> {
+
+        @Override
+        public boolean test(long value, NumberInterval interval) {
+            return compileLong(interval).test(value);
+        }
+
+        @Override
+        public LongPredicate compileLong(NumberInterval interval) {
+            if (interval == null) {
+                return value -> true;
+            }
+            LongBounds bounds = new LongBounds(Long.class, interval);
+            return value -> bounds.test(value);
+        }
+    }
+
+    private static final class DoubleIntervalPredicate extends
+            NumberIntervalPredicate<Double> implements
+            DoubleFilterPredicate<NumberInterval> {
+
+        @Override
+        public boolean test(double value, NumberInterval interval) {
+            return compileDouble(interval).test(value);
+        }
+
+        @Override
+        public DoublePredicate compileDouble(NumberInterval interval) {
+            if (interval == null) {
+                return value -> true;
+            }
+            DoubleBounds bounds = new DoubleBounds(Double.class, interval);
+            return value -> bounds.test(value);
+        }
+
+        /*
+         * Integer columns are compared as doubles too, so that fractional
+         * bounds work like they do for the bean values.
+         */
+        @Override
+        public IntPredicate compile(ColumnStore column,
+                NumberInterval interval) {
+            DoublePredicate compiled = compileDouble(interval);
+            if (column instanceof IntColumn) {
+                int[] values = ((IntColumn) column).getValues();
+                return nonNull(column, row -> compiled.test(values[row]));
+            }
+            if (column instanceof LongColumn) {
+                long[] values = ((LongColumn) column).getValues();
+                return nonNull(column, row -> compiled.test(values[row]));
+            }
+            return super.compile(column, interval);
+        }
+
+        @Override
+        IndexRange select(ColumnIndexes indexes, NumberInterval interval) {
+            SortedIndex index = indexes.getSortedIndex();
+            return index == null || !index.isFloatingPoint() ? null
+                    : super.select(indexes, interval);
+        }
+    }
+
+    /**
+     * Number interval predicate compiled for one interval. The bounds are
+     * parsed for the type of the first compared value and kept until a value
+     * of another type is compared, so that comparing the values of one
+     * column parses the interval only once.
+     */
+    private static final class CompiledNumberInterval<T> implements
+            SerializablePredicate<T> {
+
+        private final NumberInterval interval;
+
+        private transient volatile NumberBounds bounds;
+
+        private CompiledNumberInterval(NumberInterval interval) {
+            this.interval = interval;
+        }
+
+        @Override
+        public boolean test(T value) {
+            if (!(value instanceof Comparable)) {
+                return false;
+            }
+            Class<?> type = value.getClass();
+            NumberBounds current = bounds;
+            if (current == null || current.type != type) {
+                current = NumberBounds.of(type, interval);
+                bounds = current;
+            }
+            return current.test(value);
+        }
+    }
+
+    /**
+     * Bounds of a number interval parsed once for one number type.
+     */
+    private abstract static class NumberBounds {
+
+        private final Class<?> type;
+
+        private NumberBounds(Class<?> type) {
+            this.type = type;
+        }
+
+        /*
+         * Primitive wrappers are compared as primitives, other numbers with
+         * compareTo() and equals() like the boxed values.
+         */
+        private static NumberBounds of(Class<?> type,
+                NumberInterval interval) {
+            if (type == Double.class || type == Float.class) {
+                return new DoubleBounds(type, interval);
+            }
+            if (type == Long.class || type == Integer.class
+                    || type == Short.class || type == Byte.class) {
+                return new LongBounds(type, interval);
+            }
+            return new ComparableBounds(type, interval);
+        }
+
+        abstract boolean test(Object value);
+    }
+
+    /**
+     * Bounds of a number interval parsed once into {@code double} values.
+     * Comparisons follow {@link Double#compare(double, double)} like the
+     * boxed {@code Double} and {@code Float} comparisons do.
+     */
+    private static final class DoubleBounds extends NumberBounds {
+
+        private final boolean hasEq;
+        private final boolean hasLt;
+        private final boolean hasGt;
+        private final double eq;
+        private final double lt;
+        private final double gt;
+
+        private DoubleBounds(Class<?> type, NumberInterval interval) {
+            super(type);
+            hasEq = StringUtils.isNotBlank(interval.getEqualsValue());
+            hasLt = !hasEq && StringUtils.isNotBlank(interval.getLessThanValue());
+            hasGt = !hasEq && StringUtils.isNotBlank(interval.getGreaterThanValue());
+            eq = hasEq ? parse(type, interval.getEqualsValue()) : 0;
+            lt = hasLt ? parse(type, interval.getLessThanValue()) : 0;
+            gt = hasGt ? parse(type, interval.getGreaterThanValue()) : 0;
+        }
+
+        private static double parse(Class<?> type, String value) {
+            return ((Number) parseNumberValue(type, value)).doubleValue();
+        }
+
+        @Override
+        boolean test(Object value) {
+            return test(((Number) value).doubleValue());
+        }
+
+        private boolean test(double value) {
+            if (hasEq) {
+                return Double.compare(value, eq) == 0;
+            }
+            return (hasLt || hasGt)
+                    && (!hasLt || Double.compare(value, lt) < 0)
+                    && (!hasGt || Double.compare(value, gt) > 0);
+        }
+
+        private IndexRange select(SortedIndex index) {
+            if (hasEq) {
+                return index.between(eq, true, eq, true);
+            }
+            if (!hasLt && !hasGt) {
+                return index.none();
+            }
+            /* NaN sorts above every other value, like in Double.compare() */
+            return index.between(hasGt ? gt : Double.NEGATIVE_INFINITY, !hasGt,
+                    hasLt ? lt : Double.NaN, !hasLt);
+        }
+    }
+
+    /**
+     * Bounds of a number interval parsed once into {@code long} values.
+     */
+    private static final class LongBounds extends NumberBounds {
+
+        private final boolean hasEq;
+        private final boolean hasLt;
+        private final boolean hasGt;
+        private final long eq;
+        private final long lt;
+        private final long gt;
+
+        private LongBounds(Class<?> type, NumberInterval interval) {
+            super(type);
+            hasEq = StringUtils.isNotBlank(interval.getEqualsValue());
+            hasLt = !hasEq && StringUtils.isNotBlank(interval.getLessThanValue());
+            hasGt = !hasEq && StringUtils.isNotBlank(interval.getGreaterThanValue());
+            eq = hasEq ? parse(type, interval.getEqualsValue()) : 0;
+            lt = hasLt ? parse(type, interval.getLessThanValue()) : 0;
+            gt = hasGt ? parse(type, interval.getGreaterThanValue()) : 0;
+        }
+
+        private static long parse(Class<?> type, String value) {
+            return ((Number) parseNumberValue(type, value)).longValue();
+        }
+
+        @Override
+        boolean test(Object value) {
+            return test(((Number) value).longValue());
+        }
+
+        private boolean test(long value) {
+            if (hasEq) {
+                return value == eq;
+            }
+            return (hasLt || hasGt) && (!hasLt || value < lt)
+                    && (!hasGt || value > gt);
+        }
+
+        private IndexRange select(SortedIndex index) {
+            if (hasEq) {
+                return index.between(eq, true, eq, true);
+            }
+            if (!hasLt && !hasGt) {
+                return index.none();
+            }
+            return index.between(hasGt ? gt : Long.MIN_VALUE, !hasGt,
+                    hasLt ? lt : Long.MAX_VALUE, !hasLt);
+        }
+    }
+
+    /**
+     * Bounds of a number interval parsed once into the compared number type,
+     * for numbers that have no primitive form such as {@link BigDecimal}.
+     */
+    private static final class ComparableBounds extends NumberBounds {
+
+        private final Comparable<Object> eq;
+        private final Comparable<Object> lt;
+        private final Comparable<Object> gt;
+
+        @SuppressWarnings("unchecked")
+        private ComparableBounds(Class<?> type, NumberInterval interval) {
+            super(type);
+            String eqValue = interval.getEqualsValue();
+            String ltValue = interval.getLessThanValue();
+            String gtValue = interval.getGreaterThanValue();
+            boolean hasEq = StringUtils.isNotBlank(eqValue);
+            eq = hasEq ? (Comparable<Object>) parseNumberValue(type, eqValue)
+                    : null;
+            lt = !hasEq && StringUtils.isNotBlank(ltValue)
+                    ? (Comparable<Object>) parseNumberValue(type, ltValue)
+                    : null;
+            gt = !hasEq && StringUtils.isNotBlank(gtValue)
+                    ? (Comparable<Object>) parseNumberValue(type, gtValue)
+                    : null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        boolean test(Object value) {
+            if (eq != null) {
+                /* BigDecimal.equals() also compares the scale */
+                return value.equals(eq);
+            }
+            Comparable<Object> comparable = (Comparable<Object>) value;
+            return (lt != null || gt != null)
+                    && (lt == null || comparable.compareTo(lt) < 0)
+                    && (gt == null || comparable.compareTo(gt) > 0);
+        }
+    }
+
+    private static class DateRangePredicate<T> implements
+            RefinablePredicate<T, DateRange>, CompilablePredicate<T, DateRange>,
+            ColumnarPredicate<DateRange> {
+
+        @Override
+        public boolean test(T value, DateRange interval) {
+            return compile(interval).test(value);
+        }
+
+        @Override
+        public SerializablePredicate<T> compile(DateRange interval) {
+            /* Handle date filtering */
+            if (interval == null || interval.isNull()) {
+                /* Date interval is empty -> no filter */
+                return value -> true;
+            }
+
+            /*
+             * Both ends are inclusive and the end of the range is compared to
+             * the start of the next day. The bounds are converted once to the
+             * representation of each supported value type.
+             */
+            LocalDate from = interval.getDateFrom();
+            LocalDate to = interval.getDateTo() == null ? null
+                    : interval.getDateTo().plusDays(1);
+            ZoneId zone = ZoneId.systemDefault();
+            long fromMillis = from == null ? Long.MIN_VALUE
+                    : from.atStartOfDay(zone).toInstant().toEpochMilli();
+            long toMillis = to == null ? Long.MAX_VALUE
+                    : to.atStartOfDay(zone).toInstant().toEpochMilli();
+            long fromDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+            long toDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+            LocalDateTime fromTime = from == null ? LocalDateTime.MIN
+                    : from.atStartOfDay();
+            LocalDateTime toTime = to == null ? LocalDateTime.MAX
+                    : to.atStartOfDay();
+
+            return value -> {
+                if (value == null) return false;
+
+                if (value instanceof Date) {
+                    long millis = ((Date) value).getTime();
+                    if (millis == toMillis && value instanceof Timestamp
+                            && ((Timestamp) value).getNanos() % 1_000_000 != 0) {
+                        /* Nanoseconds past the end of the range */
+                        return false;
+                    }
+                    return millis >= fromMillis && millis <= toMillis;
+                }
+                if (value instanceof LocalDate) {
+                    long day = ((LocalDate) value).toEpochDay();
+                    return day >= fromDay && day <= toDay;
+                }
+                if (value instanceof LocalDateTime) {
+                    LocalDateTime time = (LocalDateTime) value;
+                    return !time.isBefore(fromTime) && !time.isAfter(toTime);
+                }
+                return true; // should not happen
+            };
+        }
+
+        @Override
+        public boolean isRefinement(DateRange previous, DateRange next) {
+            if (previous.getDateFrom() != null && (next.getDateFrom() == null
+                    || next.getDateFrom().isBefore(previous.getDateFrom()))) {
+                return false;
+            }
+            return previous.getDateTo() == null || next.getDateTo() != null
+                    && !next.getDateTo().isAfter(previous.getDateTo());
+        }
+
+        @Override
+        public IntPredicate compile(ColumnStore column, DateRange interval) {
+            if (!(column instanceof TemporalColumn)) {
+                return null;
+            }
+            long[] values = ((TemporalColumn) column).getValues();
+            long[] bounds = bounds((TemporalColumn) column, interval);
+            long lower = bounds[0];
+            long upper = bounds[1];
+            return nonNull(column,
+                    row -> values[row] >= lower && values[row] <= upper);
+        }
+
+        @Override
+        public BitSet lookup(ColumnIndexes indexes, DateRange interval) {
+            IndexRange range = select(indexes, interval);
+            return range == null ? null : range.toBitSet();
+        }
+
+        @Override
+        public int count(ColumnIndexes indexes, DateRange interval) {
+            IndexRange range = select(indexes, interval);
+            return range == null ? -1 : range.size();
+        }
+
+        private static IndexRange select(ColumnIndexes indexes,
+                DateRange interval) {
+            SortedIndex index = indexes.getSortedIndex();
+            if (index == null
+                    || !(index.getColumn() instanceof TemporalColumn)) {
+                return null;
+            }
+            long[] bounds = bounds((TemporalColumn) index.getColumn(),
+                    interval);
+            return index.between(bounds[0], true, bounds[1], true);
+        }
+
+        /*
+         * Inclusive lower and upper bounds of the range in the unit of the
+         * column.
+         */
+        private static long[] bounds(TemporalColumn column,
+                DateRange interval) {
+            LocalDate from = interval.getDateFrom();
+            /* The end of the range is compared to the start of the next day */
+            LocalDate to = interval.getDateTo() == null ? null
+                    : interval.getDateTo().plusDays(1);
+            if (column.isEpochDays()) {
+                return new long[] {
+                        from == null ? Long.MIN_VALUE : from.toEpochDay(),
+                        to == null ? Long.MAX_VALUE : to.toEpochDay() };
+            }
+            return new long[] {
+                    from == null ? Long.MIN_VALUE
+                            : from.atStartOfDay(column.getZone()).toInstant()
+                                    .toEpochMilli(),
+                    to == null ? Long.MAX_VALUE
+                            : to.atStartOfDay(column.getZone()).toInstant()
+                                    .toEpochMilli() };
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.vaadin.addons.filteringgrid.comparators;
+
+import com.vaadin.server.SerializableBiPredicate;
+
+/**
+ * Filter predicate that can tell whether a new filter value is a refinement
+ * of a previous one, i.e. whether every value passing the predicate with the
+ * new filter value also passes it with the previous filter value.
+ * <p>
+ * The grid uses this information to filter only the previous result set
+ * again instead of the whole data set when the user narrows down a filter,
+ * for example by typing more characters into a text filter.
+ *
+ * @param <V>
+ *         the filterable value type
+ * @param <F>
+ *         the filter value type
+ */
+public interface RefinablePredicate<V, F> extends
+        SerializableBiPredicate<V, F> {
+
+    /**
+     * Checks whether the next filter value narrows down the previous one.
+     * Both filter values are non-{@code null}.
+     *
+     * @param previous
+     *         the previous filter value
+     * @param next
+     *         the new filter value
+     * @return {@code true} if every value that passes with {@code next} also
+     * passes with {@code previous}, {@code false} if that is not the case or
+     * cannot be decided
+     */
+    public boolean isRefinement(F previous, F next);
+}
@@ -1,12 +1,39 @@
 package org.vaadin.addons.filteringgrid.comparators;
 
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.vaadin.addons.filteringgrid.columnar.ColumnIndexes;
+import org.vaadin.addons.filteringgrid.columnar.ColumnStore;
+import org.vaadin.addons.filteringgrid.columnar.ColumnarPredicate;
+import org.vaadin.addons.filteringgrid.columnar.PrefixIndex;
+import org.vaadin.addons.filteringgrid.columnar.TrigramIndex;
+
 import com.vaadin.server.SerializableBiPredicate;
+import com.vaadin.server.SerializablePredicate;
 
 /**
  * Helper class for comparing {@link String} objects.
  */
 public class StringComparator {
 
+    /**
+     * The maximum length of a regular expression of a {@link #matchesRegex()}
+     * filter.
+     */
+    public static final int MAX_REGEX_LENGTH = 256;
+
+    /**
+     * The longest time in milliseconds that a {@link #matchesRegex()} filter
+     * may take to evaluate one value before it is disabled.
+     */
+    public static final long REGEX_TIMEOUT_MILLIS = 50;
+
     /**
      * Compares an object's {@code toString()} value to another string and
      * decides whether the first contains the second. Ignores {@code null}
@@ -17,9 +44,10 @@ public class StringComparator {
      * @return a predicate that does the comparison
      */
     public static <T> SerializableBiPredicate<T, String> contains() {
-        return Comparator.ignoreNull(
+        return Comparator.refinable(Comparator.ignoreNull(
                 (value, filterValue) -> value.toString()
-                        .contains(filterValue));
+                        .contains(filterValue)),
+                (previous, next) -> next.contains(previous));
     }
 
     /**
@@ -32,9 +60,7 @@ public class StringComparator {
      * @return a predicate that does the comparison
      */
     public static <T> SerializableBiPredicate<T, String> containsIgnoreCase() {
-        return Comparator.ignoreNull(
-                (value, filterValue) -> value.toString().toLowerCase()
-                        .contains(filterValue.toLowerCase()));
+        return new ContainsIgnoreCasePredicate<>();
     }
 
     /**
@@ -47,9 +73,7 @@ public class StringComparator {
      * @return a predicate that does the comparison
      */
     public static <T> SerializableBiPredicate<T, String> startsWith() {
-        return Comparator.ignoreNull(
-                (value, filterValue) -> value.toString()
-                        .startsWith(filterValue));
+        return new StartsWithPredicate<>(false);
     }
 
     /**
@@ -62,8 +86,438 @@ public class StringComparator {
      * @return a predicate that does the comparison
      */
     public static <T> SerializableBiPredicate<T, String> startsWithIgnoreCase() {
-        return Comparator.ignoreNull(
-                (value, filterValue) -> value.toString().toLowerCase()
-                        .startsWith(filterValue.toLowerCase()));
+        return new StartsWithPredicate<>(true);
+    }
+
+    /**
+     * Compares an object's {@code toString()} value to a wildcard pattern
+     * and decides whether the whole value matches it. In the pattern,
+     * {@code *} matches any sequence of characters and {@code ?} matches
+     * any single character. Ignores {@code null} values.
+     * <p>
+     * Patterns like {@code abc*}, {@code *abc} and {@code *abc*} are
+     * evaluated as plain prefix, suffix and contains comparisons, and no
+     * pattern is evaluated with a regular expression, so matching takes at
+     * most time proportional to the product of the value and pattern
+     * lengths.
+     *
+     * @param <T>
+     *         type of the comparable object
+     * @return a predicate that does the comparison
+     */
+    public static <T> SerializableBiPredicate<T, String> matchesWildcard() {
+        return new WildcardPredicate<>(false);
+    }
+
+    /**
+     * Compares an object's {@code toString()} value to a wildcard pattern
+     * and decides whether the whole value matches it, ignoring case. In the
+     * pattern, {@code *} matches any sequence of characters and {@code ?}
+     * matches any single character. Ignores {@code null} values.
+     *
+     * @param <T>
+     *         type of the comparable object
+     * @return a predicate that does the comparison
+     * @see #matchesWildcard()
+     */
+    public static <T> SerializableBiPredicate<T, String> matchesWildcardIgnoreCase() {
+        return new WildcardPredicate<>(true);
+    }
+
+    /**
+     * Compares an object's {@code toString()} value to a regular expression
+     * and decides whether the expression matches a part of the value, like
+     * {@link java.util.regex.Matcher#find()}. The expression can be anchored
+     * with {@code ^} and {@code $} to match the whole value. Ignores {@code
+     * null} values.
+     * <p>
+     * The expression is compiled once per filter value, and an expression
+     * without special characters, optionally starting with {@code ^}, is
+     * evaluated as a plain contains or prefix comparison. An expression that
+     * is not valid, or is longer than {@value #MAX_REGEX_LENGTH} characters,
+     * disables the filter so that all values pass. So does an expression
+     * whose evaluation for one value takes longer than {@value
+     * #REGEX_TIMEOUT_MILLIS} milliseconds, which protects the grid from
+     * expressions that backtrack catastrophically. The compiled expression
+     * is then a {@link TimeLimitedPredicate}, so that the grid evaluates the
+     * rows again with the filter disabled for all of them.
+     *
+     * @param <T>
+     *         type of the comparable object
+     * @return a predicate that does the comparison
+     */
+    public static <T> SerializableBiPredicate<T, String> matchesRegex() {
+        return new RegexPredicate<>();
+    }
+
+    private static class ContainsIgnoreCasePredicate<T> implements
+            RefinablePredicate<T, String>, CompilablePredicate<T, String>,
+            NormalizingPredicate<T, String>, ColumnarPredicate<String> {
+
+        @Override
+        public Object normalize(T value) {
+            return value == null ? null : value.toString().toLowerCase();
+        }
+
+        @Override
+        public SerializablePredicate<T> compile(String filterValue) {
+            if (filterValue == null) {
+                return value -> true;
+            }
+            String lowerCase = filterValue.toLowerCase();
+            return value -> value == null
+                    || value.toString().toLowerCase().contains(lowerCase);
+        }
+
+        @Override
+        public boolean isRefinement(String previous, String next) {
+            return next.toLowerCase().contains(previous.toLowerCase());
+        }
+
+        @Override
+        public IntPredicate compile(ColumnStore column, String filterValue) {
+            return null;
+        }
+
+        @Override
+        public BitSet lookup(ColumnIndexes indexes, String filterValue) {
+            TrigramIndex index = indexes.getTrigramIndex();
+            BitSet rows = index == null ? null
+                    : index.containing(filterValue.toLowerCase());
+            if (rows != null) {
+                /* Rows without a value pass the filter */
+                rows.or(indexes.getColumn().getNullRows());
+            }
+            return rows;
+        }
+    }
+
+    private static class StartsWithPredicate<T> implements
+            RefinablePredicate<T, String>, CompilablePredicate<T, String>,
+            NormalizingPredicate<T, String>, ColumnarPredicate<String> {
+
+        private final boolean ignoreCase;
+
+        private StartsWithPredicate(boolean ignoreCase) {
+            this.ignoreCase = ignoreCase;
+        }
+
+        @Override
+        public Object normalize(T value) {
+            if (value == null) {
+                return null;
+            }
+            return ignoreCase ? value.toString().toLowerCase()
+                    : value.toString();
+        }
+
+        @Override
+        public SerializablePredicate<T> compile(String filterValue) {
+            if (filterValue == null) {
+                return value -> true;
+            }
+            if (ignoreCase) {
+                String lowerCase = filterValue.toLowerCase();
+                return value -> value == null
+                        || value.toString().toLowerCase().startsWith(lowerCase);
+            }
+            return value -> value == null
+                    || value.toString().startsWith(filterValue);
+        }
+
+        @Override
+        public boolean isRefinement(String previous, String next) {
+            return ignoreCase
+                    ? next.toLowerCase().startsWith(previous.toLowerCase())
+                    : next.startsWith(previous);
+        }
+
+        @Override
+        public IntPredicate compile(ColumnStore column, String filterValue) {
+            return null;
+        }
+
+        @Override
+        public BitSet lookup(ColumnIndexes indexes, String filterValue) {
+            PrefixIndex index = indexes.getPrefixIndex(ignoreCase);
+            if (index == null) {
+                return null;
+            }
+            BitSet rows = index.startingWith(
+                    ignoreCase ? filterValue.toLowerCase() : filterValue)
+                    .toBitSet();
+            /* Rows without a value pass the filter */
+            rows.or(indexes.getColumn().getNullRows());
+            return rows;
+        }
+
+        @Override
+        public boolean isAlwaysIndexed() {
+            return true;
+        }
+    }
+
+    /**
+     * Predicate that is compiled for one filter value. The latest compiled
+     * predicate is kept, so that evaluating it without a filter plan doesn't
+     * compile the filter value again for every row.
+     */
+    private abstract static class PatternPredicate<T> implements
+            CompilablePredicate<T, String> {
+
+        private transient volatile CompiledPattern<T> latest;
+
+        @Override
+        public boolean test(T value, String filterValue) {
+            CompiledPattern<T> compiled = latest;
+            if (compiled == null
+                    || !Objects.equals(compiled.filterValue, filterValue)) {
+                compiled = new CompiledPattern<>(filterValue,
+                        compile(filterValue));
+                latest = compiled;
+            }
+            return compiled.predicate.test(value);
+        }
+    }
+
+    private static final class CompiledPattern<T> {
+
+        private final String filterValue;
+
+        private final SerializablePredicate<T> predicate;
+
+        private CompiledPattern(String filterValue,
+                SerializablePredicate<T> predicate) {
+            this.filterValue = filterValue;
+            this.predicate = predicate;
+        }
+    }
+
+    private static class WildcardPredicate<T> extends PatternPredicate<T>
+            implements NormalizingPredicate<T, String> {
+
+        private final boolean ignoreCase;
+
+        private WildcardPredicate(boolean ignoreCase) {
+            this.ignoreCase = ignoreCase;
+        }
+
+        @Override
+        public Object normalize(T value) {
+            if (value == null) {
+                return null;
+            }
+            return ignoreCase ? value.toString().toLowerCase()
+                    : value.toString();
+        }
+
+        @Override
+        public SerializablePredicate<T> compile(String filterValue) {
+            if (filterValue == null) {
+                return value -> true;
+            }
+            Wildcard wildcard = new Wildcard(
+                    ignoreCase ? filterValue.toLowerCase() : filterValue);
+            return value -> value == null
+                    || wildcard.matches((String) normalize(value));
+        }
+    }
+
+    /**
+     * Wildcard pattern split at its {@code *} characters. The first segment
+     * must match at the start of a value and the last one at the end, and
+     * the segments in between are searched for from left to right. Taking
+     * the leftmost match of each segment never loses a match, so no
+     * backtracking is needed.
+     */
+    private static final class Wildcard implements Serializable {
+
+        private final String[] segments;
+
+        private final boolean anyCharacter;
+
+        private Wildcard(String pattern) {
+            segments = pattern.split("\\*", -1);
+            anyCharacter = pattern.indexOf('?') >= 0;
+        }
+
+        private boolean matches(String value) {
+            String first = segments[0];
+            if (segments.length == 1) {
+                return value.length() == first.length()
+                        && regionMatches(value, 0, first);
+            }
+            String last = segments[segments.length - 1];
+            int end = value.length() - last.length();
+            if (end < first.length() || !regionMatches(value, 0, first)
+                    || !regionMatches(value, end, last)) {
+                return false;
+            }
+            int from = first.length();
+            for (int i = 1; i < segments.length - 1; i++) {
+                int index = indexOf(value, segments[i], from, end);
+                if (index < 0) {
+                    return false;
+                }
+                from = index + segments[i].length();
+            }
+            return true;
+        }
+
+        private int indexOf(String value, String segment, int from, int end) {
+            if (!anyCharacter) {
+                int index = value.indexOf(segment, from);
+                return index + segment.length() <= end ? index : -1;
+            }
+            for (int index = from; index + segment.length() <= end; index++) {
+                if (regionMatches(value, index, segment)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        private boolean regionMatches(String value, int offset,
+                String segment) {
+            if (!anyCharacter) {
+                return value.startsWith(segment, offset);
+            }
+            for (int i = 0; i < segment.length(); i++) {
+                char c = segment.charAt(i);
+                if (c != '?' && c != value.charAt(offset + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class RegexPredicate<T> extends PatternPredicate<T> {
+
+        private static final String SPECIAL_CHARACTERS = "\\^$.|?*+()[]{}";
+
+        @Override
+        public SerializablePredicate<T> compile(String filterValue) {
+            if (filterValue == null || filterValue.length() > MAX_REGEX_LENGTH) {
+                return value -> true;
+            }
+            boolean anchored = filterValue.startsWith("^");
+            String literal = anchored ? filterValue.substring(1) : filterValue;
+            if (isLiteral(literal)) {
+                return anchored
+                        ? value -> value == null
+                                || value.toString().startsWith(literal)
+                        : value -> value == null
+                                || value.toString().contains(literal);
+            }
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(filterValue);
+            } catch (PatternSyntaxException e) {
+                return value -> true;
+            }
+            return new CompiledRegex<>(pattern);
+        }
+
+        private static boolean isLiteral(String regex) {
+            for (int i = 0; i < regex.length(); i++) {
+                if (SPECIAL_CHARACTERS.indexOf(regex.charAt(i)) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Regular expression compiled for one filter value. Once the evaluation
+     * of a value times out, the expression is disabled and every value
+     * passes.
+     */
+    private static final class CompiledRegex<T> implements
+            TimeLimitedPredicate<T> {
+
+        private final Pattern pattern;
+
+        private volatile boolean timedOut;
+
+        private CompiledRegex(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public boolean test(T value) {
+            if (value == null || timedOut) {
+                return true;
+            }
+            long deadline = System.nanoTime()
+                    + TimeUnit.MILLISECONDS.toNanos(REGEX_TIMEOUT_MILLIS);
+            try {
+                return pattern.matcher(
+                        new DeadlineCharSequence(value.toString(), deadline))
+                        .find();
+            } catch (RegexTimeoutException e) {
+                timedOut = true;
+                return true;
+            }
+        }
+
+        @Override
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+    }
+
+    /**
+     * Text that fails the regular expression reading it once the deadline
+     * has passed. The clock is only read every few thousand characters, as
+     * a backtracking expression reads the text over and over.
+     */
+    private static final class DeadlineCharSequence implements CharSequence {
+
+        private static final int CHECK_INTERVAL_MASK = 0xFFF;
+
+        private final String text;
+
+        private final long deadline;
+
+        private int reads;
+
+        private DeadlineCharSequence(String text, long deadline) {
+            this.text = text;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if ((++reads & CHECK_INTERVAL_MASK) == 0
+                    && System.nanoTime() - deadline > 0) {
+                throw new RegexTimeoutException();
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private static final class RegexTimeoutException extends
+            RuntimeException {
+
+        private RegexTimeoutException() {
+            super(null, null, false, false);
+        }
     }
 }
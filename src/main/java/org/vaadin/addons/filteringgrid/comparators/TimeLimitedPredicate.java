@@ -0,0 +1,27 @@
+package org.vaadin.addons.filteringgrid.comparators;
+
+import com.vaadin.server.SerializablePredicate;
+
+/**
+ * Compiled filter predicate whose evaluation can run out of time. Once it
+ * has timed out, the predicate lets every value pass.
+ * <p>
+ * Values evaluated before the timeout may have been rejected, so the grid
+ * evaluates the rows again when the predicate times out during a pass. The
+ * filter is then inactive for every row instead of for the rows that
+ * happened to be evaluated after the timeout.
+ *
+ * @param <V>
+ *         the filterable value type
+ * @see CompilablePredicate#compile(Object)
+ */
+public interface TimeLimitedPredicate<V> extends SerializablePredicate<V> {
+
+    /**
+     * Checks whether the evaluation of a value has timed out.
+     *
+     * @return {@code true} if every value passes from now on, otherwise
+     * {@code false}
+     */
+    public boolean isTimedOut();
+}
@@ -2,6 +2,7 @@ package org.vaadin.addons.filteringgrid.components;
 
 import java.time.LocalDate;
 import java.util.Locale;
+import java.util.Objects;
 
 import com.vaadin.data.HasValue;
 import com.vaadin.shared.Registration;
@@ -41,6 +42,24 @@ public class DateRangeField extends CustomComponent implements
         public boolean isNull() {
             return dateFrom == null && dateTo == null;
         }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof DateRange)) {
+                return false;
+            }
+            DateRange other = (DateRange) obj;
+            return Objects.equals(dateFrom, other.dateFrom)
+                    && Objects.equals(dateTo, other.dateTo);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dateFrom, dateTo);
+        }
     }
 
     private final HorizontalLayout container;
@@ -1,6 +1,7 @@
 package org.vaadin.addons.filteringgrid.components;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
  * @author Vimukthi
@@ -31,4 +32,23 @@ public class NumberInterval implements Serializable {
     public String getEqualsValue() {
         return equalsValue;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof NumberInterval)) {
+            return false;
+        }
+        NumberInterval other = (NumberInterval) obj;
+        return Objects.equals(lessThanValue, other.lessThanValue)
+                && Objects.equals(greaterThanValue, other.greaterThanValue)
+                && Objects.equals(equalsValue, other.equalsValue);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lessThanValue, greaterThanValue, equalsValue);
+    }
+}
@@ -0,0 +1,31 @@
+package org.vaadin.addons.filteringgrid.filters;
+
+import com.vaadin.data.ValueProvider;
+
+/**
+ * Value provider that gives a primitive {@code double} value. The value is
+ * boxed only where a {@link ValueProvider} is needed, for example to show it
+ * in the grid. In-memory filters with a {@link
+ * org.vaadin.addons.filteringgrid.comparators.DoubleFilterPredicate primitive
+ * filter predicate} compare the primitive value without boxing it.
+ *
+ * @param <T>
+ *         the bean type
+ */
+@FunctionalInterface
+public interface DoubleValueProvider<T> extends ValueProvider<T, Double> {
+
+    /**
+     * Gets the value of the given bean.
+     *
+     * @param bean
+     *         the bean
+     * @return the double value
+     */
+    public double applyAsDouble(T bean);
+
+    @Override
+    public default Double apply(T bean) {
+        return applyAsDouble(bean);
+    }
+}
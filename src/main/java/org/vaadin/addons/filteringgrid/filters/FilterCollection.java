@@ -1,27 +1,44 @@
 package org.vaadin.addons.filteringgrid.filters;
 
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * An object that holds a collection of filters that are attached to {@link
- * org.vaadin.addons.filteringgrid.FilterGrid FilterGrid}.
+ * An immutable snapshot of the values of the filters that are attached to
+ * {@link org.vaadin.addons.filteringgrid.FilterGrid FilterGrid}.
+ * <p>
+ * The snapshot is taken when the filter values change, so the values don't
+ * change during a query. Two filter collections are equal when they have the
+ * same filter keys with equal values, which makes them usable as cache keys.
  */
-public class FilterCollection {
+public class FilterCollection implements Serializable {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
 
     private static final FilterCollection EMPTY = new FilterCollection(
-            Collections.emptyList());
+            Collections.emptyMap());
+
+    private final Map<String, Object> values;
+
+    private final long version;
 
-    private final Collection<Filter<?>> filters;
+    private final int hashCode;
 
-    private FilterCollection(Collection<Filter<?>> filters) {
-        this.filters = filters;
+    private FilterCollection(Map<String, Object> values) {
+        this.values = values;
+        version = VERSIONS.incrementAndGet();
+        hashCode = values.hashCode();
     }
 
     /**
-     * Creates a {@link FilterCollection} object from a collection of filters.
+     * Creates a {@link FilterCollection} object from the current values of a
+     * collection of filters.
      *
      * @param filters
      *         collection of filters from which to create the filter collection
@@ -29,8 +46,10 @@ public class FilterCollection {
      * @return a new filter collection object
      */
     public static FilterCollection createFrom(Collection<Filter<?>> filters) {
-        FilterCollection collection = new FilterCollection(filters);
-        return collection;
+        Map<String, Object> values = new HashMap<>(
+                filters.size() * 4 / 3 + 1);
+        filters.forEach(filter -> values.put(filter.getKey(), filter.getValue()));
+        return new FilterCollection(Collections.unmodifiableMap(values));
     }
 
     /**
@@ -42,9 +61,28 @@ public class FilterCollection {
         return EMPTY;
     }
 
+    /**
+     * Gets the filter values of this snapshot.
+     *
+     * @return an unmodifiable map from filter keys to filter values, with
+     * {@code null} values for empty filters
+     */
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    /**
+     * Gets the version of this snapshot. Every snapshot gets a higher version
+     * than the snapshots created before it, regardless of the filter values.
+     *
+     * @return the version of this snapshot
+     */
+    public long getVersion() {
+        return version;
+    }
+
     private Optional<?> getValue(String key) {
-        return filters.stream().filter(f -> f.getKey().equals(key)).findAny()
-                .map(Filter::getValue);
+        return Optional.ofNullable(values.get(key));
     }
 
     /**
@@ -110,4 +148,21 @@ public class FilterCollection {
     public Optional<LocalDate> getLocalDateValue(String key) {
         return getValue(key, LocalDate.class);
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof FilterCollection)) {
+            return false;
+        }
+        FilterCollection other = (FilterCollection) obj;
+        return hashCode == other.hashCode && values.equals(other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
 }
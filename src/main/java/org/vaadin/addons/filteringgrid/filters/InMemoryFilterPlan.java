@@ -0,0 +1,584 @@
+package org.vaadin.addons.filteringgrid.filters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+
+import org.vaadin.addons.filteringgrid.comparators.CompilablePredicate;
+import org.vaadin.addons.filteringgrid.comparators.DoubleFilterPredicate;
+import org.vaadin.addons.filteringgrid.comparators.IntFilterPredicate;
+import org.vaadin.addons.filteringgrid.comparators.LongFilterPredicate;
+import org.vaadin.addons.filteringgrid.comparators.RefinablePredicate;
+import org.vaadin.addons.filteringgrid.comparators.TimeLimitedPredicate;
+import org.vaadin.addons.filteringgrid.components.DateRangeField.DateRange;
+
+import com.vaadin.data.ValueProvider;
+import com.vaadin.server.SerializableBiPredicate;
+import com.vaadin.server.SerializablePredicate;
+import com.vaadin.server.SerializableToIntFunction;
+
+/**
+ * Compiled form of the in-memory filters attached to a {@link
+ * org.vaadin.addons.filteringgrid.FilterGrid FilterGrid}.
+ * <p>
+ * The plan holds only the active filters, i.e. the ones with a non-empty
+ * value, in a flat array together with the values they had when the plan was
+ * compiled. Evaluating an item is then a plain loop over the arrays without
+ * looking up the filters or their values again. Filter predicates that are
+ * {@link CompilablePredicate compilable} are compiled for their value when
+ * the plan is compiled. A filter whose value provider gives primitive values,
+ * such as an {@link IntValueProvider}, and whose predicate is a matching
+ * primitive predicate, such as an {@link IntFilterPredicate}, is evaluated
+ * without boxing the values. A plan has to be compiled again whenever the
+ * value of any of its filters changes.
+ * <p>
+ * The filters are kept in the order they are evaluated in, so that an item
+ * is rejected by the first filter it doesn't pass. The plan starts with the
+ * filters ordered by their cost hints and can {@link #adaptOrder(List)
+ * adapt} the order to a sample of the items, so that cheap filters that
+ * reject many items run first.
+ * <p>
+ * When {@link #enableStatistics() statistics are enabled}, the plan counts
+ * for each filter how many items it evaluates and how many of them pass.
+ *
+ * @param <T>
+ *         the grid bean type
+ */
+public class InMemoryFilterPlan<T> implements SerializablePredicate<T> {
+
+    /**
+     * The largest number of items {@link #adaptOrder(List)} evaluates.
+     */
+    public static final int SAMPLE_SIZE = 256;
+
+    private final InMemoryFilter<T, Object, Object>[] filters;
+
+    private final ValueProvider<T, Object>[] valueProviders;
+
+    private final SerializableBiPredicate<Object, Object>[] predicates;
+
+    private final Object[] values;
+
+    private final SerializablePredicate<Object>[] compiledPredicates;
+
+    private final SerializablePredicate<T>[] primitivePredicates;
+
+    private final boolean[] indexed;
+
+    private transient LongAdder[] evaluatedCounts;
+
+    private transient LongAdder[] passedCounts;
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private InMemoryFilterPlan(List<InMemoryFilter<T, Object, Object>> active,
+            List<Object> activeValues,
+            SerializablePredicate<Filter<?>> indexedFilters,
+            SerializableToIntFunction<Filter<?>> costHints) {
+        int size = active.size();
+        filters = active.toArray(new InMemoryFilter[size]);
+        valueProviders = new ValueProvider[size];
+        predicates = new SerializableBiPredicate[size];
+        values = activeValues.toArray();
+        compiledPredicates = new SerializablePredicate[size];
+        primitivePredicates = new SerializablePredicate[size];
+        indexed = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            valueProviders[i] = filters[i].getValueProvider();
+            predicates[i] = filters[i].getFilterPredicate();
+            compiledPredicates[i] = compilePredicate(predicates[i], values[i]);
+            primitivePredicates[i] = compilePrimitivePredicate(
+                    valueProviders[i], predicates[i], values[i]);
+            indexed[i] = indexedFilters.test(filters[i]);
+        }
+        double[] hints = new double[size];
+        for (int i = 0; i < size; i++) {
+            hints[i] = costHints.applyAsInt(filters[i]);
+        }
+        reorder(hints);
+    }
+
+    /**
+     * Compiles a plan out of the in-memory filters in the given collection.
+     * Filters that are not {@link InMemoryFilter in-memory filters} and
+     * filters that are not {@link #isActive(Object) active} are left out.
+     *
+     * @param filters
+     *         the filters to compile
+     * @param <T>
+     *         the grid bean type
+     * @return a new filter plan
+     */
+    public static <T> InMemoryFilterPlan<T> compile(
+            Collection<? extends Filter<?>> filters) {
+        return compile(filters, filter -> false);
+    }
+
+    /**
+     * Compiles a plan out of the in-memory filters in the given collection,
+     * marking the filters that should be answered from a sorted index when
+     * the data provider supports it.
+     *
+     * @param filters
+     *         the filters to compile
+     * @param indexedFilters
+     *         predicate that tells which filters are indexed
+     * @param <T>
+     *         the grid bean type
+     * @return a new filter plan
+     * @see org.vaadin.addons.filteringgrid.columnar.SortedIndex
+     */
+    public static <T> InMemoryFilterPlan<T> compile(
+            Collection<? extends Filter<?>> filters,
+            SerializablePredicate<Filter<?>> indexedFilters) {
+        return compile(filters, indexedFilters, filter -> 1);
+    }
+
+    /**
+     * Compiles a plan out of the in-memory filters in the given collection,
+     * marking the indexed filters and ordering the filters by the given cost
+     * hints. A cost hint is the relative cost of evaluating the filter for
+     * one item, where {@code 1} is the cost of a simple comparison. Filters
+     * with equal hints keep the order of the collection.
+     *
+     * @param filters
+     *         the filters to compile
+     * @param indexedFilters
+     *         predicate that tells which filters are indexed
+     * @param costHints
+     *         function that gives the cost hint of a filter
+     * @param <T>
+     *         the grid bean type
+     * @return a new filter plan
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> InMemoryFilterPlan<T> compile(
+            Collection<? extends Filter<?>> filters,
+            SerializablePredicate<Filter<?>> indexedFilters,
+            SerializableToIntFunction<Filter<?>> costHints) {
+        List<InMemoryFilter<T, Object, Object>> active = new ArrayList<>();
+        List<Object> activeValues = new ArrayList<>();
+        for (Filter<?> filter : filters) {
+            if (filter instanceof InMemoryFilter) {
+                Object value = filter.getValue();
+                if (isActive(value)) {
+                    active.add((InMemoryFilter<T, Object, Object>) filter);
+                    activeValues.add(value);
+                }
+            }
+        }
+        return new InMemoryFilterPlan<>(active, activeValues, indexedFilters,
+                costHints);
+    }
+
+    /**
+     * Decides whether a filter with the given value takes part in filtering.
+     * A filter is inactive when its value is {@code null}, an empty string or
+     * an empty date range.
+     *
+     * @param filterValue
+     *         the value of a filter
+     * @return {@code true} if the filter should be evaluated, otherwise
+     * {@code false}
+     */
+    public static boolean isActive(Object filterValue) {
+        if (filterValue == null) {
+            return false;
+        }
+        if (filterValue instanceof CharSequence) {
+            return ((CharSequence) filterValue).length() > 0;
+        }
+        if (filterValue instanceof DateRange) {
+            return !((DateRange) filterValue).isNull();
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the plan contains any active filters.
+     *
+     * @return {@code true} if every item passes this plan, otherwise {@code
+     * false}
+     */
+    public boolean isEmpty() {
+        return filters.length == 0;
+    }
+
+    /**
+     * Gets the number of active filters in this plan.
+     *
+     * @return the number of active filters
+     */
+    public int size() {
+        return filters.length;
+    }
+
+    /**
+     * Gets the key of the filter at the given position.
+     *
+     * @param index
+     *         the position of the filter in this plan
+     * @return the filter key
+     */
+    public String getKey(int index) {
+        return filters[index].getKey();
+    }
+
+    /**
+     * Gets the value provider of the filter at the given position.
+     *
+     * @param index
+     *         the position of the filter in this plan
+     * @return the value provider of the filter
+     */
+    public ValueProvider<T, Object> getValueProvider(int index) {
+        return valueProviders[index];
+    }
+
+    /**
+     * Gets the predicate of the filter at the given position.
+     *
+     * @param index
+     *         the position of the filter in this plan
+     * @return the filter predicate
+     */
+    public SerializableBiPredicate<Object, Object> getFilterPredicate(
+            int index) {
+        return predicates[index];
+    }
+
+    /**
+     * Gets the value the filter at the given position had when this plan was
+     * compiled.
+     *
+     * @param index
+     *         the position of the filter in this plan
+     * @return the filter value, never {@code null}
+     */
+    public Object getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Gets the predicate of the filter at the given position bound to the
+     * value the filter had when this plan was compiled.
+     *
+     * @param index
+     *         the position of the filter in this plan
+     * @return the compiled filter predicate
+     */
+    public SerializablePredicate<Object> getCompiledPredicate(int index) {
+        return compiledPredicates[index];
+    }
+
+    /**
+     * Checks whether a compiled predicate of this plan has {@link
+     * TimeLimitedPredicate timed out}. The filter lets every item pass after
+     * the timeout, so a result evaluated while it timed out has to be
+     * evaluated again.
+     *
+     * @return {@code true} if a filter of this plan has timed out, otherwise
+     * {@code false}
+     */
+    public boolean isTimedOut() {
+        for (SerializablePredicate<Object> compiled : compiledPredicates) {
+            if (compiled instanceof TimeLimitedPredicate
+                    && ((TimeLimitedPredicate<Object>) compiled).isTimedOut()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the filter at the given position should be answered
+     * from a sorted index.
+     *
+     * @param index
+     *         the position of the filter in this plan
+     * @return {@code true} if the filter is indexed, otherwise {@code false}
+     */
+    public boolean isIndexed(int index) {
+        return indexed[index];
+    }
+
+    /**
+     * Checks whether this plan narrows down the given previous plan, i.e.
+     * whether every item that passes this plan is known to also pass the
+     * previous one. That is the case when every filter of the previous plan
+     * is still active with the same value or with a value that its {@link
+     * RefinablePredicate} considers a refinement. Filters that have become
+     * active since the previous plan only narrow the result further.
+     *
+     * @param previous
+     *         the previously evaluated plan
+     * @return {@code true} if items that did not pass the previous plan can
+     * not pass this plan either, otherwise {@code false}
+     */
+    @SuppressWarnings("unchecked")
+    public boolean isRefinementOf(InMemoryFilterPlan<T> previous) {
+        for (int i = 0; i < previous.filters.length; i++) {
+            int index = indexOf(previous.filters[i]);
+            if (index < 0 || predicates[index] != previous.predicates[i]) {
+                return false;
+            }
+            Object previousValue = previous.values[i];
+            if (Objects.equals(values[index], previousValue)) {
+                continue;
+            }
+            if (!(predicates[index] instanceof RefinablePredicate)
+                    || !((RefinablePredicate<Object, Object>) predicates[index])
+                            .isRefinement(previousValue, values[index])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Orders the filters by their measured cost and selectivity on the given
+     * sample of items. Each filter evaluates every item of the sample, and
+     * the filters are then ordered by their average evaluation time divided
+     * by the share of items they reject. Filters that reject many items
+     * cheaply therefore come first. Plans with fewer than two filters are
+     * not changed.
+     * <p>
+     * The sample should be spread evenly over the items to filter and hold
+     * at most {@link #SAMPLE_SIZE} items. The order must not be adapted while
+     * the plan is being evaluated.
+     *
+     * @param sample
+     *         the items to measure the filters with
+     */
+    public void adaptOrder(List<? extends T> sample) {
+        int size = filters.length;
+        if (size < 2 || sample.isEmpty()) {
+            return;
+        }
+        double[] ranks = new double[size];
+        /* The first round warms up the items and the code of every filter */
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < size; i++) {
+                int rejected = 0;
+                long start = System.nanoTime();
+                for (T item : sample) {
+                    if (!test(i, item)) {
+                        rejected++;
+                    }
+                }
+                double cost = (double) (System.nanoTime() - start)
+                        / sample.size();
+                double rejectRate = (rejected + 0.5) / (sample.size() + 1);
+                ranks[i] = cost / rejectRate;
+            }
+        }
+        reorder(ranks);
+    }
+
+    /**
+     * Starts counting the items evaluated and passed by each filter of this
+     * plan. Counting adds a small cost to every evaluated filter.
+     */
+    public void enableStatistics() {
+        if (evaluatedCounts == null) {
+            LongAdder[] passed = new LongAdder[filters.length];
+            LongAdder[] evaluated = new LongAdder[filters.length];
+            for (int i = 0; i < filters.length; i++) {
+                passed[i] = new LongAdder();
+                evaluated[i] = new LongAdder();
+            }
+            passedCounts = passed;
+            evaluatedCounts = evaluated;
+        }
+    }
+
+    /**
+     * Checks whether this plan counts the items evaluated by its filters.
+     *
+     * @return {@code true} if statistics are enabled, otherwise {@code false}
+     */
+    public boolean isStatisticsEnabled() {
+        return evaluatedCounts != null;
+    }
+
+    /**
+     * Gets the number of items the filter at the given position has
+     * evaluated since the statistics were enabled or last reset.
+     *
+     * @param index
+     *         the position of the filter in this plan
+     * @return the number of evaluated items, or zero if statistics are not
+     * enabled
+     */
+    public long getEvaluatedCount(int index) {
+        return evaluatedCounts == null ? 0 : evaluatedCounts[index].sum();
+    }
+
+    /**
+     * Gets the number of items that have passed the filter at the given
+     * position since the statistics were enabled or last reset.
+     *
+     * @param index
+     *         the position of the filter in this plan
+     * @return the number of passed items, or zero if statistics are not
+     * enabled
+     */
+    public long getPassedCount(int index) {
+        return passedCounts == null ? 0 : passedCounts[index].sum();
+    }
+
+    /**
+     * Counts an item evaluated by the filter at the given position outside
+     * of {@link #test(Object)}, for example by a compiled column scan. Does
+     * nothing if statistics are not enabled.
+     *
+     * @param index
+     *         the position of the filter in this plan
+     * @param passed
+     *         whether the item passed the filter
+     * @return the given {@code passed} value
+     */
+    public boolean recordEvaluation(int index, boolean passed) {
+        LongAdder[] evaluated = evaluatedCounts;
+        if (evaluated != null) {
+            evaluated[index].increment();
+            if (passed) {
+                passedCounts[index].increment();
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Sets the counts of evaluated and passed items back to zero.
+     */
+    public void resetStatistics() {
+        if (evaluatedCounts != null) {
+            for (int i = 0; i < filters.length; i++) {
+                evaluatedCounts[i].reset();
+                passedCounts[i].reset();
+            }
+        }
+    }
+
+    /*
+     * Sorts the filters by ascending rank. Equal ranks keep their order.
+     */
+    private void reorder(double[] ranks) {
+        int size = filters.length;
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> ranks[i]));
+
+        InMemoryFilter<T, Object, Object>[] oldFilters = filters.clone();
+        ValueProvider<T, Object>[] oldValueProviders = valueProviders.clone();
+        SerializableBiPredicate<Object, Object>[] oldPredicates = predicates
+                .clone();
+        Object[] oldValues = values.clone();
+        SerializablePredicate<Object>[] oldCompiledPredicates = compiledPredicates
+                .clone();
+        SerializablePredicate<T>[] oldPrimitivePredicates = primitivePredicates
+                .clone();
+        boolean[] oldIndexed = indexed.clone();
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            filters[i] = oldFilters[from];
+            valueProviders[i] = oldValueProviders[from];
+            predicates[i] = oldPredicates[from];
+            values[i] = oldValues[from];
+            compiledPredicates[i] = oldCompiledPredicates[from];
+            primitivePredicates[i] = oldPrimitivePredicates[from];
+            indexed[i] = oldIndexed[from];
+        }
+        resetStatistics();
+    }
+
+    private int indexOf(InMemoryFilter<T, Object, Object> filter) {
+        for (int i = 0; i < filters.length; i++) {
+            if (filters[i] == filter) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SerializablePredicate<Object> compilePredicate(
+            SerializableBiPredicate<Object, Object> predicate, Object value) {
+        if (predicate instanceof CompilablePredicate) {
+            return ((CompilablePredicate<Object, Object>) predicate)
+                    .compile(value);
+        }
+        return filterableValue -> predicate.test(filterableValue, value);
+    }
+
+    /*
+     * Compiles a predicate that reads the primitive value of an item
+     * directly, or returns null if the value provider and the predicate
+     * don't have the same primitive type.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> SerializablePredicate<T> compilePrimitivePredicate(
+            Object valueProvider, Object predicate, Object value) {
+        if (valueProvider instanceof IntValueProvider
+                && predicate instanceof IntFilterPredicate) {
+            IntValueProvider<T> ints = (IntValueProvider<T>) valueProvider;
+            IntPredicate compiled = ((IntFilterPredicate<Object>) predicate)
+                    .compileInt(value);
+            return item -> compiled.test(ints.applyAsInt(item));
+        } else if (valueProvider instanceof LongValueProvider
+                && predicate instanceof LongFilterPredicate) {
+            LongValueProvider<T> longs = (LongValueProvider<T>) valueProvider;
+            LongPredicate compiled = ((LongFilterPredicate<Object>) predicate)
+                    .compileLong(value);
+            return item -> compiled.test(longs.applyAsLong(item));
+        } else if (valueProvider instanceof DoubleValueProvider
+                && predicate instanceof DoubleFilterPredicate) {
+            DoubleValueProvider<T> doubles = (DoubleValueProvider<T>) valueProvider;
+            DoublePredicate compiled = ((DoubleFilterPredicate<Object>) predicate)
+                    .compileDouble(value);
+            return item -> compiled.test(doubles.applyAsDouble(item));
+        }
+        return null;
+    }
+
+    @Override
+    public boolean test(T item) {
+        LongAdder[] evaluated = evaluatedCounts;
+        if (evaluated != null) {
+            return testCounting(item, evaluated);
+        }
+        for (int i = 0; i < compiledPredicates.length; i++) {
+            if (!test(i, item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean test(int index, T item) {
+        SerializablePredicate<T> primitive = primitivePredicates[index];
+        return primitive != null ? primitive.test(item)
+                : compiledPredicates[index]
+                        .test(valueProviders[index].apply(item));
+    }
+
+    private boolean testCounting(T item, LongAdder[] evaluated) {
+        for (int i = 0; i < compiledPredicates.length; i++) {
+            evaluated[i].increment();
+            if (!test(i, item)) {
+                return false;
+            }
+            passedCounts[i].increment();
+        }
+        return true;
+    }
+}
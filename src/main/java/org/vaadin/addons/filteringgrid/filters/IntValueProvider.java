@@ -0,0 +1,31 @@
+package org.vaadin.addons.filteringgrid.filters;
+
+import com.vaadin.data.ValueProvider;
+
+/**
+ * Value provider that gives a primitive {@code int} value. The value is
+ * boxed only where a {@link ValueProvider} is needed, for example to show it
+ * in the grid. In-memory filters with a {@link
+ * org.vaadin.addons.filteringgrid.comparators.IntFilterPredicate primitive
+ * filter predicate} compare the primitive value without boxing it.
+ *
+ * @param <T>
+ *         the bean type
+ */
+@FunctionalInterface
+public interface IntValueProvider<T> extends ValueProvider<T, Integer> {
+
+    /**
+     * Gets the value of the given bean.
+     *
+     * @param bean
+     *         the bean
+     * @return the int value
+     */
+    public int applyAsInt(T bean);
+
+    @Override
+    public default Integer apply(T bean) {
+        return applyAsInt(bean);
+    }
+}
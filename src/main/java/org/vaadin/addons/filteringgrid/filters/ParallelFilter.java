@@ -0,0 +1,147 @@
+package org.vaadin.addons.filteringgrid.filters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates a filter over a large number of rows in parallel. The rows are
+ * split into chunks that are filtered by the threads of a {@link
+ * ForkJoinPool}, and the results are merged in the original row order.
+ * Smaller row counts than the threshold are filtered sequentially in the
+ * calling thread.
+ * <p>
+ * The evaluated predicates must be safe to call from several threads at the
+ * same time.
+ */
+public final class ParallelFilter {
+
+    private static final int MIN_CHUNK_SIZE = 1024;
+
+    private final ForkJoinPool pool;
+
+    private final int threshold;
+
+    /**
+     * Creates a new parallel filter.
+     *
+     * @param pool
+     *         the pool that evaluates the chunks
+     * @param threshold
+     *         the smallest row count that is filtered in parallel
+     */
+    public ParallelFilter(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Gets the pool that evaluates the chunks.
+     *
+     * @return the fork-join pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Gets the smallest row count that is filtered in parallel.
+     *
+     * @return the row count threshold
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Finds the indices from {@code 0} to {@code size - 1} that pass the
+     * given predicate.
+     *
+     * @param size
+     *         the number of indices to evaluate
+     * @param predicate
+     *         the predicate to evaluate for each index
+     * @return the passing indices in ascending order
+     */
+    public int[] filter(int size, IntPredicate predicate) {
+        if (size < threshold) {
+            return filter(predicate, 0, size);
+        }
+        int chunkSize = Math.max(MIN_CHUNK_SIZE,
+                size / (pool.getParallelism() * 4));
+        return pool.invoke(new FilterTask(predicate, 0, size, chunkSize));
+    }
+
+    /**
+     * Finds the items of the given list that pass the given predicate.
+     *
+     * @param items
+     *         the items to filter, a list with fast random access
+     * @param predicate
+     *         the predicate to evaluate for each item
+     * @param <T>
+     *         the item type
+     * @return a new list of the passing items in their original order
+     */
+    public <T> List<T> filter(List<T> items, Predicate<? super T> predicate) {
+        int[] indices = filter(items.size(),
+                index -> predicate.test(items.get(index)));
+        List<T> matches = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            matches.add(items.get(index));
+        }
+        return matches;
+    }
+
+    private static int[] filter(IntPredicate predicate, int from, int to) {
+        int[] matches = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (predicate.test(i)) {
+                matches[count++] = i;
+            }
+        }
+        return count == matches.length ? matches
+                : Arrays.copyOf(matches, count);
+    }
+
+    private static class FilterTask extends RecursiveTask<int[]> {
+
+        private final IntPredicate predicate;
+
+        private final int from;
+
+        private final int to;
+
+        private final int chunkSize;
+
+        private FilterTask(IntPredicate predicate, int from, int to,
+                int chunkSize) {
+            this.predicate = predicate;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= chunkSize) {
+                return filter(predicate, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            FilterTask left = new FilterTask(predicate, from, mid, chunkSize);
+            left.fork();
+            int[] second = new FilterTask(predicate, mid, to, chunkSize)
+                    .compute();
+            int[] first = left.join();
+
+            int[] merged = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, merged, first.length, second.length);
+            return merged;
+        }
+    }
+}
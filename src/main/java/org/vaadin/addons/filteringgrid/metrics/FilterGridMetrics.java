@@ -0,0 +1,123 @@
+package org.vaadin.addons.filteringgrid.metrics;
+
+import java.io.Serializable;
+
+/**
+ * Listener for the performance measurements of a {@link
+ * org.vaadin.addons.filteringgrid.FilterGrid FilterGrid}. Every method has an
+ * empty default implementation, so an implementation only overrides the
+ * measurements it is interested in, for example to forward them to a
+ * monitoring system.
+ * <p>
+ * A listener is set to one grid, so the measurements it receives are those
+ * of that grid. Times are in nanoseconds. The callbacks of an asynchronous
+ * data provider are measured in the threads that run them, so
+ * implementations must be safe to call from several threads at the same
+ * time.
+ */
+public interface FilterGridMetrics extends Serializable {
+
+    /**
+     * Listener that ignores all measurements, used by default.
+     */
+    public static final FilterGridMetrics NONE = new FilterGridMetrics() {
+    };
+
+    /**
+     * The caches whose hits and misses are reported.
+     */
+    public enum Cache {
+        /**
+         * The {@link org.vaadin.addons.filteringgrid.backend.CountCache
+         * cache of item counts}.
+         */
+        COUNT,
+        /**
+         * The {@link org.vaadin.addons.filteringgrid.backend.PageCache
+         * cache of fetched items}.
+         */
+        PAGE
+    }
+
+    /**
+     * Called when the grid has the item count for new filter values. The
+     * time is measured from the first filter value change after the previous
+     * refresh.
+     *
+     * @param nanos
+     *         the time from the filter value change to the refreshed count
+     */
+    public default void refreshed(long nanos) {
+    }
+
+    /**
+     * Called when the in-memory filters have been evaluated for a new filter
+     * state.
+     *
+     * @param nanos
+     *         the evaluation time
+     * @param rowsScanned
+     *         the number of evaluated items
+     * @param rowsMatched
+     *         the number of items that passed the filters
+     */
+    public default void filtersEvaluated(long nanos, int rowsScanned,
+            int rowsMatched) {
+    }
+
+    /**
+     * Called after an evaluation of the in-memory filters for each filter
+     * that took part in it. The filters are evaluated one after another and
+     * an item is rejected by the first filter it doesn't pass, so a filter
+     * only scans the items that passed the filters evaluated before it.
+     * Filters answered from an index of a {@link
+     * org.vaadin.addons.filteringgrid.columnar.ColumnarDataProvider} are not
+     * reported.
+     *
+     * @param filterKey
+     *         the key of the filter
+     * @param rowsScanned
+     *         the number of items evaluated by the filter
+     * @param rowsMatched
+     *         the number of items that passed the filter
+     */
+    public default void filterEvaluated(String filterKey, long rowsScanned,
+            long rowsMatched) {
+    }
+
+    /**
+     * Called when items have been fetched, either from the fetch callback of
+     * a backend data provider or by sorting and paging the filtered
+     * in-memory items.
+     *
+     * @param nanos
+     *         the fetch time
+     * @param itemCount
+     *         the number of fetched items
+     */
+    public default void itemsFetched(long nanos, int itemCount) {
+    }
+
+    /**
+     * Called when the count callback of a backend data provider has
+     * returned.
+     *
+     * @param nanos
+     *         the count time
+     */
+    public default void itemsCounted(long nanos) {
+    }
+
+    /**
+     * Called when a cache has been asked for a count or for a range of
+     * items.
+     *
+     * @param cache
+     *         the cache that was asked
+     * @param hit
+     *         {@code true} if the cache answered without calling the
+     *         backend, otherwise {@code false}
+     */
+    public default void cacheAccessed(Cache cache, boolean hit) {
+    }
+}
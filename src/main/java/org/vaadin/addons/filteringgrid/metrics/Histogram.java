@@ -0,0 +1,156 @@
+package org.vaadin.addons.filteringgrid.metrics;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Thread-safe histogram of non-negative values such as durations in
+ * nanoseconds. Values are counted in buckets whose width grows with the
+ * value, so that the memory use is fixed and the percentiles are accurate
+ * to within one eighth of the value.
+ */
+public class Histogram implements Serializable {
+
+    /*
+     * Values below SUB_BUCKETS have a bucket of their own. Larger values
+     * share SUB_BUCKETS buckets per power of two, up to the largest power
+     * of two of a long.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1)
+            * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+
+    private long count;
+
+    private long sum;
+
+    private long min = Long.MAX_VALUE;
+
+    private long max;
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     *
+     * @param value
+     *         the value to record
+     */
+    public synchronized void record(long value) {
+        value = Math.max(0, value);
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return the number of values
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the sum of the recorded values.
+     *
+     * @return the sum of the values
+     */
+    public synchronized long getSum() {
+        return sum;
+    }
+
+    /**
+     * Gets the smallest recorded value.
+     *
+     * @return the smallest value, or zero if no values have been recorded
+     */
+    public synchronized long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return the largest value, or zero if no values have been recorded
+     */
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     *
+     * @return the mean value, or zero if no values have been recorded
+     */
+    public synchronized double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Gets an approximation of the value below which the given percentage of
+     * the recorded values fall. For example, {@code getPercentile(99)} gives
+     * the 99th percentile.
+     *
+     * @param percentile
+     *         the percentage, from {@code 0} to {@code 100}
+     * @return the approximate percentile, or zero if no values have been
+     * recorded
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException(
+                    "Percentile must be between 0 and 100");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                long upper = bucket + 1 < BUCKET_COUNT
+                        ? lowerBound(bucket + 1) - 1 : Long.MAX_VALUE;
+                return Math.max(min, Math.min(max, upper));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS))
+                & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,262 @@
+package org.vaadin.addons.filteringgrid.metrics;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics listener that keeps the measurements of a grid in memory. Times
+ * are kept in {@link Histogram histograms}, row counts and cache accesses in
+ * counters. The collected values can be read at any time, for example to
+ * publish them periodically to a monitoring system.
+ */
+public class HistogramMetrics implements FilterGridMetrics {
+
+    private final Histogram refreshTimes = new Histogram();
+
+    private final Histogram evaluationTimes = new Histogram();
+
+    private final Histogram fetchTimes = new Histogram();
+
+    private final Histogram countTimes = new Histogram();
+
+    private final LongAdder rowsScanned = new LongAdder();
+
+    private final LongAdder rowsMatched = new LongAdder();
+
+    private final Map<String, RowCounts> filterRowCounts = new ConcurrentHashMap<>();
+
+    private final Map<Cache, LongAdder> cacheHits = new EnumMap<>(Cache.class);
+
+    private final Map<Cache, LongAdder> cacheMisses = new EnumMap<>(
+            Cache.class);
+
+    /**
+     * Creates a new, empty metrics listener.
+     */
+    public HistogramMetrics() {
+        for (Cache cache : Cache.values()) {
+            cacheHits.put(cache, new LongAdder());
+            cacheMisses.put(cache, new LongAdder());
+        }
+    }
+
+    @Override
+    public void refreshed(long nanos) {
+        refreshTimes.record(nanos);
+    }
+
+    @Override
+    public void filtersEvaluated(long nanos, int rowsScanned,
+            int rowsMatched) {
+        evaluationTimes.record(nanos);
+        this.rowsScanned.add(rowsScanned);
+        this.rowsMatched.add(rowsMatched);
+    }
+
+    @Override
+    public void filterEvaluated(String filterKey, long rowsScanned,
+            long rowsMatched) {
+        RowCounts counts = filterRowCounts.computeIfAbsent(filterKey,
+                key -> new RowCounts());
+        counts.scanned.add(rowsScanned);
+        counts.matched.add(rowsMatched);
+    }
+
+    @Override
+    public void itemsFetched(long nanos, int itemCount) {
+        fetchTimes.record(nanos);
+    }
+
+    @Override
+    public void itemsCounted(long nanos) {
+        countTimes.record(nanos);
+    }
+
+    @Override
+    public void cacheAccessed(Cache cache, boolean hit) {
+        (hit ? cacheHits : cacheMisses).get(cache).increment();
+    }
+
+    /**
+     * Gets the times from filter value changes to the refreshed item count.
+     *
+     * @return the histogram of refresh times in nanoseconds
+     */
+    public Histogram getRefreshTimes() {
+        return refreshTimes;
+    }
+
+    /**
+     * Gets the evaluation times of the in-memory filters.
+     *
+     * @return the histogram of evaluation times in nanoseconds
+     */
+    public Histogram getEvaluationTimes() {
+        return evaluationTimes;
+    }
+
+    /**
+     * Gets the times of item fetches.
+     *
+     * @return the histogram of fetch times in nanoseconds
+     */
+    public Histogram getFetchTimes() {
+        return fetchTimes;
+    }
+
+    /**
+     * Gets the times of backend count callbacks.
+     *
+     * @return the histogram of count times in nanoseconds
+     */
+    public Histogram getCountTimes() {
+        return countTimes;
+    }
+
+    /**
+     * Gets the number of items evaluated by the in-memory filters.
+     *
+     * @return the number of scanned rows
+     */
+    public long getRowsScanned() {
+        return rowsScanned.sum();
+    }
+
+    /**
+     * Gets the number of items that passed the in-memory filters.
+     *
+     * @return the number of matched rows
+     */
+    public long getRowsMatched() {
+        return rowsMatched.sum();
+    }
+
+    /**
+     * Gets the share of evaluated items that passed the in-memory filters.
+     *
+     * @return the selectivity from {@code 0} to {@code 1}, or {@code 1} if
+     * no items have been evaluated
+     */
+    public double getSelectivity() {
+        return selectivity(getRowsScanned(), getRowsMatched());
+    }
+
+    /**
+     * Gets the keys of the filters that have been evaluated.
+     *
+     * @return an unmodifiable sorted set of filter keys
+     */
+    public Set<String> getFilterKeys() {
+        return Collections.unmodifiableSet(
+                new TreeSet<>(filterRowCounts.keySet()));
+    }
+
+    /**
+     * Gets the number of items evaluated by the given filter.
+     *
+     * @param filterKey
+     *         the key of the filter
+     * @return the number of scanned rows
+     */
+    public long getRowsScanned(String filterKey) {
+        RowCounts counts = filterRowCounts.get(filterKey);
+        return counts == null ? 0 : counts.scanned.sum();
+    }
+
+    /**
+     * Gets the number of items that passed the given filter.
+     *
+     * @param filterKey
+     *         the key of the filter
+     * @return the number of matched rows
+     */
+    public long getRowsMatched(String filterKey) {
+        RowCounts counts = filterRowCounts.get(filterKey);
+        return counts == null ? 0 : counts.matched.sum();
+    }
+
+    /**
+     * Gets the share of the items evaluated by the given filter that passed
+     * it.
+     *
+     * @param filterKey
+     *         the key of the filter
+     * @return the selectivity from {@code 0} to {@code 1}, or {@code 1} if
+     * the filter has not evaluated any items
+     */
+    public double getSelectivity(String filterKey) {
+        return selectivity(getRowsScanned(filterKey),
+                getRowsMatched(filterKey));
+    }
+
+    /**
+     * Gets the number of requests the given cache answered without calling
+     * the backend.
+     *
+     * @param cache
+     *         the cache
+     * @return the number of cache hits
+     */
+    public long getCacheHits(Cache cache) {
+        return cacheHits.get(cache).sum();
+    }
+
+    /**
+     * Gets the number of requests for which the given cache called the
+     * backend.
+     *
+     * @param cache
+     *         the cache
+     * @return the number of cache misses
+     */
+    public long getCacheMisses(Cache cache) {
+        return cacheMisses.get(cache).sum();
+    }
+
+    /**
+     * Gets the share of requests the given cache answered without calling
+     * the backend.
+     *
+     * @param cache
+     *         the cache
+     * @return the hit ratio from {@code 0} to {@code 1}, or {@code 0} if the
+     * cache has not been used
+     */
+    public double getCacheHitRatio(Cache cache) {
+        long hits = getCacheHits(cache);
+        long total = hits + getCacheMisses(cache);
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Removes all collected measurements.
+     */
+    public void reset() {
+        refreshTimes.reset();
+        evaluationTimes.reset();
+        fetchTimes.reset();
+        countTimes.reset();
+        rowsScanned.reset();
+        rowsMatched.reset();
+        filterRowCounts.clear();
+        cacheHits.values().forEach(LongAdder::reset);
+        cacheMisses.values().forEach(LongAdder::reset);
+    }
+
+    private static double selectivity(long scanned, long matched) {
+        return scanned == 0 ? 1 : (double) matched / scanned;
+    }
+
+    private static final class RowCounts implements Serializable {
+
+        private final LongAdder scanned = new LongAdder();
+
+        private final LongAdder matched = new LongAdder();
+    }
+}
@@ -0,0 +1,352 @@
+package org.vaadin.addons.filteringgrid.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.addons.filteringgrid.backend.SqlFilterTranslator.TextMatch;
+import org.vaadin.addons.filteringgrid.comparators.Comparator;
+import org.vaadin.addons.filteringgrid.comparators.RangeComparator;
+import org.vaadin.addons.filteringgrid.comparators.StringComparator;
+import org.vaadin.addons.filteringgrid.components.DateRangeField.DateRange;
+import org.vaadin.addons.filteringgrid.components.NumberInterval;
+import org.vaadin.addons.filteringgrid.filters.Filter;
+import org.vaadin.addons.filteringgrid.filters.FilterCollection;
+
+import com.vaadin.data.HasValue.ValueChangeListener;
+import com.vaadin.server.SerializableBiPredicate;
+import com.vaadin.shared.Registration;
+
+/**
+ * Runs the conditions of {@link SqlFilterTranslator} on an in-memory H2
+ * database and compares the selected rows to the in-memory predicates of
+ * the same filters.
+ */
+public class SqlFilterTranslatorTest {
+
+    private enum Status {
+        NEW, OPEN, CLOSED
+    }
+
+    private static final class Item {
+
+        private final int id;
+        private final Integer amount;
+        private final LocalDate day;
+        private final Status status;
+        private final Boolean active;
+        private final String name;
+
+        private Item(int id, Integer amount, LocalDate day, Status status,
+                Boolean active, String name) {
+            this.id = id;
+            this.amount = amount;
+            this.day = day;
+            this.status = status;
+            this.active = active;
+            this.name = name;
+        }
+    }
+
+    private static final LocalDate DAY = LocalDate.of(2018, 5, 10);
+
+    private static final List<Item> ITEMS = Arrays.asList(
+            new Item(1, 5, DAY.minusDays(2), Status.NEW, true, "50% off"),
+            new Item(2, 10, DAY.minusDays(1), Status.OPEN, false, "50 off"),
+            new Item(3, 15, DAY, Status.CLOSED, true, "a_b"),
+            new Item(4, 20, DAY.plusDays(1), Status.NEW, false, "axb"),
+            new Item(5, 25, DAY.plusDays(2), Status.OPEN, true, "C:\\Temp"),
+            new Item(6, -3, DAY.plusDays(3), Status.CLOSED, false, "c:temp"),
+            new Item(7, 0, DAY.plusDays(10), Status.NEW, true, "Hey!"),
+            new Item(8, 100, DAY.minusDays(10), Status.OPEN, false, "hey"),
+            new Item(9, null, null, null, null, null),
+            new Item(10, 15, DAY, Status.NEW, true, "A_B%\\!"));
+
+    private Connection connection;
+
+    private SqlFilterTranslator translator;
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE item (id INT PRIMARY KEY, "
+                    + "amount INT, day DATE, status VARCHAR(10), "
+                    + "active BOOLEAN, name VARCHAR(20))");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO item VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (Item item : ITEMS) {
+                insert.setInt(1, item.id);
+                insert.setObject(2, item.amount);
+                insert.setObject(3, item.day);
+                insert.setObject(4,
+                        item.status == null ? null : item.status.name());
+                insert.setObject(5, item.active);
+                insert.setObject(6, item.name);
+                insert.executeUpdate();
+            }
+        }
+
+        translator = new SqlFilterTranslator()
+                .map("amount", "amount")
+                .map("day", "day")
+                .map("status", "status")
+                .map("active", "active")
+                .map("contains", "name", TextMatch.CONTAINS)
+                .map("containsIgnoreCase", "name",
+                        TextMatch.CONTAINS_IGNORE_CASE)
+                .map("startsWith", "name", TextMatch.STARTS_WITH)
+                .map("startsWithIgnoreCase", "name",
+                        TextMatch.STARTS_WITH_IGNORE_CASE);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void numberIntervalEquals() throws SQLException {
+        SqlCondition first = assertSameRows("amount", interval("", "", "15"),
+                RangeComparator.numberInterval(), item -> item.amount);
+        SqlCondition second = assertSameRows("amount",
+                interval("", "", "-3"), RangeComparator.numberInterval(),
+                item -> item.amount);
+        assertSame(first.getSql(), second.getSql());
+    }
+
+    @Test
+    public void numberIntervalLessThan() throws SQLException {
+        SqlCondition first = assertSameRows("amount", interval("15", "", ""),
+                RangeComparator.numberInterval(), item -> item.amount);
+        SqlCondition second = assertSameRows("amount",
+                interval("0", "", ""), RangeComparator.numberInterval(),
+                item -> item.amount);
+        assertSame(first.getSql(), second.getSql());
+    }
+
+    @Test
+    public void numberIntervalGreaterThan() throws SQLException {
+        SqlCondition first = assertSameRows("amount", interval("", "15", ""),
+                RangeComparator.numberInterval(), item -> item.amount);
+        SqlCondition second = assertSameRows("amount",
+                interval("", "-10", ""), RangeComparator.numberInterval(),
+                item -> item.amount);
+        assertSame(first.getSql(), second.getSql());
+    }
+
+    @Test
+    public void numberIntervalBetween() throws SQLException {
+        SqlCondition first = assertSameRows("amount",
+                interval("25", "5", ""), RangeComparator.numberInterval(),
+                item -> item.amount);
+        SqlCondition second = assertSameRows("amount",
+                interval("1", "-5", ""), RangeComparator.numberInterval(),
+                item -> item.amount);
+        assertSame(first.getSql(), second.getSql());
+    }
+
+    @Test
+    public void dateRangeFrom() throws SQLException {
+        SqlCondition first = assertSameRows("day", new DateRange(DAY, null),
+                RangeComparator.dateRange(), item -> item.day);
+        SqlCondition second = assertSameRows("day",
+                new DateRange(DAY.plusDays(3), null),
+                RangeComparator.dateRange(), item -> item.day);
+        assertSame(first.getSql(), second.getSql());
+    }
+
+    @Test
+    public void dateRangeTo() throws SQLException {
+        SqlCondition first = assertSameRows("day", new DateRange(null, DAY),
+                RangeComparator.dateRange(), item -> item.day);
+        SqlCondition second = assertSameRows("day",
+                new DateRange(null, DAY.minusDays(2)),
+                RangeComparator.dateRange(), item -> item.day);
+        assertSame(first.getSql(), second.getSql());
+    }
+
+    @Test
+    public void dateRangeFromAndTo() throws SQLException {
+        SqlCondition first = assertSameRows("day",
+                new DateRange(DAY.minusDays(1), DAY.plusDays(1)),
+                RangeComparator.dateRange(), item -> item.day);
+        SqlCondition second = assertSameRows("day", new DateRange(DAY, DAY),
+                RangeComparator.dateRange(), item -> item.day);
+        assertSame(first.getSql(), second.getSql());
+    }
+
+    @Test
+    public void enumEquals() throws SQLException {
+        SqlCondition first = assertSameRows("status", Status.NEW,
+                Comparator.isEqualTo(), item -> item.status);
+        SqlCondition second = assertSameRows("status", Status.CLOSED,
+                Comparator.isEqualTo(), item -> item.status);
+        assertSame(first.getSql(), second.getSql());
+    }
+
+    @Test
+    public void booleanEquals() throws SQLException {
+        SqlCondition first = assertSameRows("active", true,
+                Comparator.isEqualTo(), item -> item.active);
+        SqlCondition second = assertSameRows("active", false,
+                Comparator.isEqualTo(), item -> item.active);
+        assertSame(first.getSql(), second.getSql());
+    }
+
+    @Test
+    public void contains() throws SQLException {
+        assertTextMatch("contains", StringComparator.contains());
+    }
+
+    @Test
+    public void containsIgnoreCase() throws SQLException {
+        assertTextMatch("containsIgnoreCase",
+                StringComparator.containsIgnoreCase());
+    }
+
+    @Test
+    public void startsWith() throws SQLException {
+        assertTextMatch("startsWith", StringComparator.startsWith());
+    }
+
+    @Test
+    public void startsWithIgnoreCase() throws SQLException {
+        assertTextMatch("startsWithIgnoreCase",
+                StringComparator.startsWithIgnoreCase());
+    }
+
+    @Test
+    public void shapeDependsOnWhichFiltersHaveValues() throws SQLException {
+        SqlCondition amount = assertSameRows("amount",
+                interval("", "", "15"), RangeComparator.numberInterval(),
+                item -> item.amount);
+        SqlCondition status = assertSameRows("status", Status.NEW,
+                Comparator.isEqualTo(), item -> item.status);
+        assertNotSame(amount.getSql(), status.getSql());
+
+        SqlCondition empty = translator.translate(filters("amount",
+                interval("", "", "")));
+        assertSame(translator.translate(FilterCollection.getEmpty())
+                .getSql(), empty.getSql());
+        assertEquals(selectIds(empty), allIds());
+    }
+
+    private void assertTextMatch(String key,
+            SerializableBiPredicate<String, String> predicate)
+            throws SQLException {
+        List<String> values = Arrays.asList("%", "_", "\\", "!", "50%",
+                "a_", "A_B%\\!", "c:\\", "hey", "HEY", "x");
+        String sql = null;
+        for (String value : values) {
+            SqlCondition condition = assertSameRows(key, value, predicate,
+                    item -> item.name);
+            if (sql == null) {
+                sql = condition.getSql();
+            } else {
+                assertSame(value, sql, condition.getSql());
+            }
+        }
+    }
+
+    /*
+     * Asserts that the rows selected by the translated condition are the
+     * rows that pass the in-memory predicate.
+     */
+    @SuppressWarnings("unchecked")
+    private <V, F> SqlCondition assertSameRows(String key, F filterValue,
+            SerializableBiPredicate<V, F> predicate,
+            Function<Item, ?> getter) throws SQLException {
+        SqlCondition condition = translator.translate(
+                filters(key, filterValue));
+
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (Item item : ITEMS) {
+            if (predicate.test((V) getter.apply(item), filterValue)) {
+                expected.add(item.id);
+            }
+        }
+        assertEquals(condition.toString(), expected, selectIds(condition));
+        return condition;
+    }
+
+    private TreeSet<Integer> selectIds(SqlCondition condition)
+            throws SQLException {
+        TreeSet<Integer> ids = new TreeSet<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id FROM item WHERE " + condition.getSql())) {
+            condition.setParameters(statement, 1);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    ids.add(result.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static TreeSet<Integer> allIds() {
+        TreeSet<Integer> ids = new TreeSet<>();
+        ITEMS.forEach(item -> ids.add(item.id));
+        return ids;
+    }
+
+    private static NumberInterval interval(String lessThan,
+            String greaterThan, String equals) {
+        return new NumberInterval(lessThan, greaterThan, equals);
+    }
+
+    private static FilterCollection filters(String key, Object value) {
+        List<Filter<?>> filters = new ArrayList<>();
+        filters.add(new ValueFilter(key, value));
+        return FilterCollection.createFrom(
+                Collections.unmodifiableList(filters));
+    }
+
+    private static final class ValueFilter implements Filter<Object> {
+
+        private final String key;
+
+        private final Object value;
+
+        private ValueFilter(String key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public Registration addValueChangeListener(
+                ValueChangeListener<Object> listener) {
+            return () -> {
+            };
+        }
+    }
+}